@@ -0,0 +1,150 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Harness Class
+ * <p>
+ * A minimal stand-in for JMH, shared by the benchmarks under {@code bench/}. They are plain main classes that compile
+ * together with the sources, as the README shows.
+ * <p>
+ * A single-threaded measurement warms the operation up, then reports the best of several timed rounds in nanoseconds per
+ * operation, and the bytes the thread allocated per operation when the JVM can count them. A throughput measurement
+ * runs the operation on several threads for a fixed time and reports the operations per second. The numbers are only
+ * meant to compare two paths run in the same JVM, not as absolute costs.
+ */
+public final class Harness {
+
+    /**
+     * One operation of a benchmark.
+     */
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+    private static volatile Object sink;
+
+    private Harness() {
+    }
+
+    /**
+     * Keeps a result alive, so the JIT can't drop the work that produced it.
+     *
+     * @param value the result of an operation
+     */
+    public static void consume(Object value) {
+        sink = value;
+    }
+
+    /**
+     * Times an operation on the current thread and prints its cost.
+     *
+     * @param name       the label printed with the result
+     * @param operations the number of operations in a round
+     * @param operation  the operation to time
+     */
+    public static void measure(String name, int operations, Operation operation) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < operations; i++) {
+                operation.run();
+            }
+        }
+        long bestNanos = Long.MAX_VALUE;
+        long leastAllocated = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                operation.run();
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocatedAfter = allocatedBytes();
+            bestNanos = Math.min(bestNanos, elapsed);
+            if (allocatedBefore >= 0) {
+                leastAllocated = Math.min(leastAllocated, allocatedAfter - allocatedBefore);
+            }
+        }
+        String allocated = leastAllocated == Long.MAX_VALUE ? "n/a"
+                : String.format("%.1f", leastAllocated / (double) operations);
+        System.out.printf("%-48s %12.1f ns/op %10s B/op%n", name, bestNanos / (double) operations, allocated);
+    }
+
+    /**
+     * Runs an operation on several threads at once for a while and prints the total throughput. The threads start
+     * together after a warm-up of the same length.
+     *
+     * @param name      the label printed with the result
+     * @param threads   the number of threads
+     * @param millis    how long the operation is timed
+     * @param operation the operation, which must be safe to run concurrently
+     */
+    public static void measureThroughput(String name, int threads, long millis, Operation operation) throws Exception {
+        runConcurrently(threads, millis, operation);
+        long operations = runConcurrently(threads, millis, operation);
+        System.out.printf("%-48s %12.0f ops/s (%d threads)%n", name,
+                operations * 1000.0 / millis, threads);
+    }
+
+    private static long runConcurrently(int threads, long millis, Operation operation) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] counts = new long[threads];
+        Exception[] failure = new Exception[1];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long count = 0;
+                    while (running.get()) {
+                        operation.run();
+                        count++;
+                    }
+                    counts[index] = count;
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        TimeUnit.MILLISECONDS.sleep(millis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
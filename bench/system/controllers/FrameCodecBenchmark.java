@@ -0,0 +1,174 @@
+package system.controllers;
+
+import benchmarks.Harness;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * FrameCodecBenchmark Class
+ * <p>
+ * Compares the {@link WebSocketFrameCodec} with the stream-based framing it replaced, kept below as it was in
+ * PlayerInputListener and MatchOutputDispatcher. Decoding is timed on a masked player input, which the old reader only
+ * handled below 126 bytes, and encoding on a short and a long match output.
+ */
+public class FrameCodecBenchmark {
+
+    private static final int OPERATIONS = 200_000;
+    private static final String INPUT = "{\"sysCommand\":\"\",\"gameMove\":\"e\"}";
+
+    public static void main(String[] args) throws Exception {
+        String shortOutput = output(100);
+        String longOutput = output(4000);
+
+        byte[] frame = maskedFrame(INPUT);
+        ByteArrayInputStream stream = new ByteArrayInputStream(frame);
+        Harness.measure("decode input, stream reader", OPERATIONS, () -> {
+            stream.reset();
+            Harness.consume(legacyRead(stream));
+        });
+
+        BufferPool readPool = new BufferPool(false, 1 << 16, 8);
+        WebSocketFrameCodec codec = new WebSocketFrameCodec(readPool, 1 << 16, 1 << 20);
+        ByteBuffer read = ByteBuffer.allocate(4096);
+        WebSocketFrameCodec.FrameHandler handler = new TextConsumer();
+        Harness.measure("decode input, codec", OPERATIONS, () -> {
+            read.clear();
+            read.put(frame);
+            read.flip();
+            codec.decode(read, handler);
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        BufferPool writePool = new BufferPool(true, 1 << 16, 8);
+        for (String message : new String[]{shortOutput, longOutput}) {
+            String size = " (" + message.length() + " chars)";
+            Harness.measure("encode output, stream writer" + size, OPERATIONS, () -> {
+                out.reset();
+                legacySend(out, message);
+            });
+            Harness.measure("encode output, codec" + size, OPERATIONS, () -> {
+                ByteBuffer encoded = WebSocketFrameCodec.encodeText(writePool, message);
+                Harness.consume(encoded);
+                writePool.release(encoded);
+            });
+        }
+    }
+
+    private static class TextConsumer implements WebSocketFrameCodec.FrameHandler {
+        @Override
+        public void onMessage(int opcode, ByteBuffer payload, boolean compressed) {
+            Harness.consume(WebSocketFrameCodec.decodeText(payload));
+        }
+
+        @Override
+        public void onPing(ByteBuffer payload) {
+        }
+
+        @Override
+        public void onPong() {
+        }
+
+        @Override
+        public void onClose(int code) {
+        }
+
+        @Override
+        public void onError(int closeCode) {
+            throw new IllegalStateException("Rejected frame: " + closeCode);
+        }
+    }
+
+    private static String output(int length) {
+        StringBuilder text = new StringBuilder("{\"status\":\"ONGOING\",\"textContent\":\"");
+        while (text.length() < length - 2) {
+            text.append("_ _ _ e _ ");
+        }
+        text.setLength(length - 2);
+        return text.append("\"}").toString();
+    }
+
+    private static byte[] maskedFrame(String message) {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        byte[] mask = {0x12, 0x34, 0x56, 0x78};
+        ByteBuffer frame = ByteBuffer.allocate(WebSocketFrameCodec.MAX_HEADER_LENGTH + 4 + payload.length);
+        frame.put((byte) (0x80 | WebSocketFrameCodec.OPCODE_TEXT));
+        if (payload.length < 126) {
+            frame.put((byte) (0x80 | payload.length));
+        } else {
+            frame.put((byte) (0x80 | 126));
+            frame.putShort((short) payload.length);
+        }
+        frame.put(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.put((byte) (payload[i] ^ mask[i % 4]));
+        }
+        byte[] bytes = new byte[frame.position()];
+        frame.flip();
+        frame.get(bytes);
+        return bytes;
+    }
+
+    // The reader of PlayerInputListener before the codec, only correct below 126 bytes.
+    private static String legacyRead(InputStream input) throws IOException {
+        input.read();
+        int byteValue = input.read();
+        int messageLen;
+        if (byteValue - 128 <= 125) {
+            messageLen = byteValue - 128;
+        } else if (byteValue - 128 == 126) {
+            byte[] buffer = new byte[2];
+            messageLen = input.read(buffer, 0, 2);
+        } else {
+            byte[] buffer = new byte[8];
+            messageLen = input.read(buffer, 0, 8);
+        }
+
+        byte[] mask = new byte[4];
+        input.read(mask, 0, 4);
+        byte[] encoded = new byte[messageLen];
+        byte[] decoded = new byte[messageLen];
+        input.read(encoded, 0, messageLen);
+        for (int i = 0; i < messageLen; i++) {
+            decoded[i] = (byte) (encoded[i] ^ mask[i % 4]);
+        }
+        return new String(decoded);
+    }
+
+    // The writer of MatchOutputDispatcher before the codec, only correct for ASCII below 65536 chars.
+    private static void legacySend(OutputStream output, String message) throws IOException {
+        byte[] firstTwo = new byte[2];
+        firstTwo[0] |= (1 << 7);
+        firstTwo[0] |= 1;
+        int lenCode;
+        byte[] uint16Len = new byte[2];
+
+        if (message.length() < 126) {
+            lenCode = message.length();
+        } else {
+            lenCode = 126;
+            uint16Len[1] = (byte) (message.length() & 0xFF);
+            uint16Len[0] = (byte) ((message.length() >>> 8) & 0xFF);
+        }
+        firstTwo[1] |= (byte) lenCode;
+
+        byte[] result;
+        if (lenCode < 126) {
+            result = new byte[2 + message.length()];
+            System.arraycopy(firstTwo, 0, result, 0, 2);
+            System.arraycopy(message.getBytes(StandardCharsets.UTF_8), 0, result, 2, message.length());
+        } else {
+            result = new byte[4 + message.length()];
+            System.arraycopy(firstTwo, 0, result, 0, 2);
+            System.arraycopy(uint16Len, 0, result, 2, 2);
+            System.arraycopy(message.getBytes(StandardCharsets.UTF_8), 0, result, 4, message.length());
+        }
+        output.write(result);
+        output.flush();
+    }
+}
@@ -0,0 +1,92 @@
+package system.controllers;
+
+import benchmarks.Harness;
+import com.google.gson.Gson;
+import shared.DTOs.sockets.MatchInput;
+import shared.DTOs.sockets.MatchOutput;
+import shared.DTOs.sockets.MatchOutputDelta;
+import shared.constants.MatchStatus;
+import system.utilities.json.SharedGson;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MatchProtocolBenchmark Class
+ * <p>
+ * Compares the json messages with the {@link BinaryMatchProtocol}: the size of a full output and of a delta of a
+ * four-player Hangman match, the cost of encoding them, and the cost of decoding a player's input.
+ */
+public class MatchProtocolBenchmark {
+
+    private static final int OPERATIONS = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        Gson gson = SharedGson.get();
+        MatchOutput output = output();
+        MatchOutputDelta delta = delta();
+        BinaryMatchProtocol.PlayerNames names = new BinaryMatchProtocol.PlayerNames();
+        names.intern(output.playerStats.keySet());
+
+        System.out.printf("full output: %d bytes json, %d bytes binary%n",
+                WebSocketFrameCodec.utf8Length(gson.toJson(output)), BinaryMatchProtocol.encode(output, names).length);
+        System.out.printf("delta:       %d bytes json, %d bytes binary%n",
+                WebSocketFrameCodec.utf8Length(gson.toJson(delta)), BinaryMatchProtocol.encode(delta, names).length);
+        System.out.printf("player names, sent once per socket: %d bytes binary%n", names.encode(0).length);
+
+        Harness.measure("encode full output, json", OPERATIONS, () -> Harness.consume(gson.toJson(output)));
+        Harness.measure("encode full output, binary", OPERATIONS,
+                () -> Harness.consume(BinaryMatchProtocol.encode(output, names)));
+        Harness.measure("encode delta, json", OPERATIONS, () -> Harness.consume(gson.toJson(delta)));
+        Harness.measure("encode delta, binary", OPERATIONS,
+                () -> Harness.consume(BinaryMatchProtocol.encode(delta, names)));
+
+        String jsonInput = "{\"sysCommand\":\"\",\"gameMove\":\"e\"}";
+        ByteBuffer binaryInput = binaryInput("", "e");
+        Harness.measure("decode input, json", OPERATIONS,
+                () -> Harness.consume(gson.fromJson(jsonInput, MatchInput.class)));
+        Harness.measure("decode input, binary", OPERATIONS, () -> {
+            binaryInput.clear();
+            Harness.consume(BinaryMatchProtocol.decodeInput(binaryInput));
+        });
+    }
+
+    private static MatchOutput output() {
+        MatchOutput output = new MatchOutput();
+        output.status = MatchStatus.ONGOING;
+        output.textContent = "alice's guess 'e' not found. They lose 1 life.\n\nPuzzle 2 of 3.\nA film about a shark\n\n"
+                + "_ a _ _\n\nmisses: [e, t, o]\n";
+        output.numPlayers = 4;
+        output.playerStats = new HashMap<>();
+        output.playerStats.put("alice", "Waiting... score: 4, lives: 3, hints: 2");
+        output.playerStats.put("bob", "Active Player! score: 6, lives: 5, hints: 1");
+        output.playerStats.put("charlie", "Waiting... score: 0, lives: 4, hints: 3");
+        output.playerStats.put("dana", "Eliminated. score: 2, lives: 0, hints: 3");
+        return output;
+    }
+
+    private static MatchOutputDelta delta() {
+        MatchOutputDelta delta = new MatchOutputDelta();
+        delta.seq = 42;
+        delta.textContent = "bob guessed 'j' and earned + 1 points!\n\nPuzzle 2 of 3.\nA film about a shark\n\n"
+                + "J a _ _\n\nmisses: [e, t, o]\n";
+        Map<String, String> stats = new HashMap<>();
+        stats.put("bob", "Waiting... score: 7, lives: 5, hints: 1");
+        stats.put("charlie", "Active Player! score: 0, lives: 4, hints: 3");
+        delta.playerStats = stats;
+        return delta;
+    }
+
+    private static ByteBuffer binaryInput(String sysCommand, String gameMove) {
+        byte[] command = sysCommand.getBytes(StandardCharsets.UTF_8);
+        byte[] move = gameMove.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer input = ByteBuffer.allocate(3 + command.length + move.length);
+        input.put((byte) BinaryMatchProtocol.INPUT);
+        input.put((byte) command.length).put(command);
+        input.put((byte) move.length).put(move);
+        input.flip();
+        return input;
+    }
+}
@@ -0,0 +1,70 @@
+package system.use_cases.game_matches;
+
+import benchmarks.Harness;
+import shared.constants.MatchStatus;
+import system.entities.game.hangman.HangmanGame;
+import system.entities.template.HangmanTemplate;
+
+/**
+ * HangmanMoveBenchmark Class
+ * <p>
+ * Compares the move throughput of {@link HangmanMatch} with the engine it replaced, {@link LegacyHangmanMatch}. Each
+ * operation creates a two-player match and plays it to the end, guessing the characters in order of frequency. Both
+ * engines see the same moves and finish after the same number of them, so the cost of a game is comparable, and the
+ * cost of setting a match up is measured on its own.
+ */
+public class HangmanMoveBenchmark {
+
+    private static final int GAMES = 5_000;
+    private static final String[] GUESSES = "etaoinshrdlucmfwypvbgkqjxz0123456789".split("");
+
+    private interface Engine {
+        GameMatch newMatch() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        HangmanGame game = new HangmanGame();
+        game.setID("0");
+        game.setNumLives(GUESSES.length);
+        game.setNumHints(0);
+        game.addPuzzle("The quick brown fox jumps over the lazy dog", "A pangram");
+        game.addPuzzle("Pack my box with five dozen liquor jugs", "Another pangram");
+        game.addPuzzle("Sphinx of black quartz, judge my vow 1984", "One with digits");
+        game.setNumPuzzles(3);
+        HangmanTemplate template = new HangmanTemplate();
+
+        Engine current = () -> new HangmanMatch("0", "1", "alice", game, template);
+        Engine legacy = () -> new LegacyHangmanMatch("0", "1", "alice", game, template);
+        System.out.printf("moves per game: %d with the current engine, %d with the legacy one%n",
+                play(setUp(current)), play(setUp(legacy)));
+
+        Harness.measure("set up a match, legacy engine", GAMES, () -> Harness.consume(setUp(legacy)));
+        Harness.measure("set up a match, current engine", GAMES, () -> Harness.consume(setUp(current)));
+        Harness.measure("set up and play a game, legacy engine", GAMES, () -> play(setUp(legacy)));
+        Harness.measure("set up and play a game, current engine", GAMES, () -> play(setUp(current)));
+    }
+
+    private static GameMatch setUp(Engine engine) throws Exception {
+        GameMatch match = engine.newMatch();
+        match.addPlayer("2", "bob");
+        match.startMatch();
+        return match;
+    }
+
+    // Offers every guess to both players in turn, only the active one is heard.
+    private static int play(GameMatch match) throws Exception {
+        int moves = 0;
+        for (int pass = 0; match.getStatus() == MatchStatus.ONGOING; pass++) {
+            if (pass == GUESSES.length) {
+                throw new IllegalStateException("The game never ends");
+            }
+            for (int i = 0; i < GUESSES.length && match.getStatus() == MatchStatus.ONGOING; i++) {
+                match.playMove("1", GUESSES[i]);
+                match.playMove("2", GUESSES[i]);
+                moves += 2;
+            }
+        }
+        Harness.consume(match.getTextContent());
+        return moves;
+    }
+}
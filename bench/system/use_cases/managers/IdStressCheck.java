@@ -0,0 +1,154 @@
+package system.use_cases.managers;
+
+import system.gateways.CounterDataMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * IdStressCheck Class
+ * <p>
+ * Checks that IDs reserved in blocks from one durable counter stay unique under contention. Several worker processes
+ * share a counter in a fresh temporary database, each drawing IDs from many threads at once, and the check fails unless
+ * every ID is distinct and the counter covers them all.
+ * <p>
+ * Usage: {@code IdStressCheck [processes] [threads] [idsPerThread] [blockSize]}, by default 2 processes of 16 threads
+ * drawing 20000 IDs each in blocks of 32. The exit status is 1 if the check fails, and the temporary database is then
+ * left in place for a look.
+ */
+public class IdStressCheck {
+
+    private static final String COUNTER = "stress";
+    private static final String WORKER = "--worker";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(WORKER)) {
+            work(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int idsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+        int blockSize = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        File root = Files.createTempDirectory("id-stress").toFile();
+        File counters = new File(root, "src/system/database/countFiles");
+        if (!counters.mkdirs()) {
+            throw new IOException("Can't create " + counters);
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<Process> workers = new ArrayList<>();
+        List<File> outputs = new ArrayList<>();
+        for (int p = 0; p < processes; p++) {
+            File output = new File(root, "worker" + p + ".txt");
+            outputs.add(output);
+            workers.add(new ProcessBuilder(java, "-Duser.dir=" + root.getAbsolutePath(),
+                    "-cp", System.getProperty("java.class.path"), IdStressCheck.class.getName(), WORKER,
+                    String.valueOf(threads), String.valueOf(idsPerThread), String.valueOf(blockSize))
+                    .redirectOutput(output)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start());
+        }
+        for (Process worker : workers) {
+            if (worker.waitFor() != 0) {
+                fail("a worker process failed");
+            }
+        }
+
+        long expected = (long) processes * threads * idsPerThread;
+        Set<Long> seen = new HashSet<>();
+        for (File output : outputs) {
+            try (BufferedReader reader = Files.newBufferedReader(output.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!seen.add(Long.parseLong(line))) {
+                        fail("ID " + line + " was handed out twice");
+                    }
+                }
+            }
+        }
+        if (seen.size() != expected) {
+            fail(seen.size() + " IDs were handed out instead of " + expected);
+        }
+        long counter = Long.parseLong(new String(Files.readAllBytes(new File(counters, COUNTER + ".txt").toPath()),
+                StandardCharsets.UTF_8).trim());
+        for (long id : seen) {
+            if (id < 1 || id > counter) {
+                fail("ID " + id + " is outside the reserved range 1.." + counter);
+            }
+        }
+        if (counter - expected >= (long) processes * blockSize) {
+            fail("the counter reached " + counter + ", more than one partial block per process past " + expected);
+        }
+        System.out.println("OK: " + expected + " unique IDs from " + processes + " processes of " + threads
+                + " threads, counter at " + counter);
+        delete(root);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void work(int threads, int idsPerThread, int blockSize) throws Exception {
+        IdManager ids = new IdManager(new CounterDataMapper(), COUNTER, blockSize, "");
+        String[][] drawn = new String[threads][idsPerThread];
+        Exception[] failure = new Exception[1];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String[] mine = drawn[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < mine.length; i++) {
+                        mine[i] = ids.getNextId();
+                    }
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        synchronized (failure) {
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            for (String[] mine : drawn) {
+                for (String id : mine) {
+                    out.write(id);
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    private static void fail(String reason) {
+        System.out.println("FAILED: " + reason);
+        System.exit(1);
+    }
+}
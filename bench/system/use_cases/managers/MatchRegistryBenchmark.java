@@ -0,0 +1,78 @@
+package system.use_cases.managers;
+
+import benchmarks.Harness;
+import shared.constants.IDType;
+import shared.exceptions.use_case_exceptions.InvalidIDException;
+import system.entities.game.hangman.HangmanGame;
+import system.entities.template.HangmanTemplate;
+import system.use_cases.game_matches.GameMatch;
+import system.use_cases.game_matches.HangmanMatch;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * MatchRegistryBenchmark Class
+ * <p>
+ * Compares the lookup throughput of the single match registry with the three status maps it replaced, kept below with
+ * the probing of the old getters. Half of the matches are preparing and half are ongoing, and every thread looks up the
+ * hosts of random matches at the same time.
+ */
+public class MatchRegistryBenchmark {
+
+    private static final int MATCHES = 10_000;
+    private static final long MILLIS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        HangmanGame game = new HangmanGame();
+        game.setID("0");
+        game.addPuzzle("benchmark", "A test of speed");
+        HangmanTemplate template = new HangmanTemplate();
+
+        MatchManager registry = new MatchManager(4);
+        LegacyRegistry legacy = new LegacyRegistry();
+        String[] ids = new String[MATCHES];
+        for (int i = 0; i < MATCHES; i++) {
+            ids[i] = registry.newMatch("host" + i, "host", game, template);
+            HangmanMatch match = new HangmanMatch(ids[i], "host" + i, "host", game, template);
+            legacy.preparingMatches.put(ids[i], match);
+            if (i % 2 == 1) {
+                registry.startMatch(ids[i]);
+                legacy.startMatch(ids[i]);
+            }
+        }
+
+        for (int threads : new int[]{1, 4, 16}) {
+            Harness.measureThroughput("getHostId, three status maps", threads, MILLIS,
+                    () -> Harness.consume(legacy.getHostId(ids[ThreadLocalRandom.current().nextInt(MATCHES)])));
+            Harness.measureThroughput("getHostId, single registry", threads, MILLIS,
+                    () -> Harness.consume(registry.getHostId(ids[ThreadLocalRandom.current().nextInt(MATCHES)])));
+        }
+        registry.shutdown();
+    }
+
+    // The match maps of MatchManager before the single registry.
+    private static class LegacyRegistry {
+        final Map<String, GameMatch> preparingMatches = new ConcurrentHashMap<>();
+        final Map<String, GameMatch> ongoingMatches = new ConcurrentHashMap<>();
+        final Map<String, GameMatch> finishedMatches = new ConcurrentHashMap<>();
+
+        void startMatch(String matchID) {
+            ongoingMatches.put(matchID, preparingMatches.remove(matchID));
+            ongoingMatches.get(matchID).startMatch();
+        }
+
+        String getHostId(String matchID) throws InvalidIDException {
+            if (preparingMatches.containsKey(matchID)) {
+                return preparingMatches.get(matchID).getHostID();
+            } else if (ongoingMatches.containsKey(matchID)) {
+                return ongoingMatches.get(matchID).getHostID();
+            } else if (finishedMatches.containsKey(matchID)) {
+                return finishedMatches.get(matchID).getHostID();
+            } else {
+                throw new InvalidIDException(IDType.MATCH);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package system.utilities.json;
+
+import benchmarks.Harness;
+import com.google.gson.Gson;
+import shared.DTOs.Responses.GameDataResponseBody;
+import shared.DTOs.Responses.MatchDataResponseBody;
+import shared.DTOs.sockets.MatchInput;
+import shared.DTOs.sockets.MatchOutput;
+import shared.DTOs.sockets.MatchOutputDelta;
+import shared.constants.GameAccessLevel;
+import shared.constants.GameGenre;
+import shared.constants.MatchStatus;
+import system.entities.game.quiz.QuizAnswer;
+
+import java.util.HashMap;
+
+/**
+ * SharedGsonBenchmark Class
+ * <p>
+ * Compares the hand-written adapters of {@link SharedGson} with the reflective adapters of a plain Gson, writing and
+ * reading each type they cover. Both must produce the same json, which is checked before timing.
+ */
+public class SharedGsonBenchmark {
+
+    private static final int OPERATIONS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        MatchOutput output = new MatchOutput();
+        output.status = MatchStatus.ONGOING;
+        output.textContent = "bob guessed 'j' and earned + 1 points!\n\nPuzzle 2 of 3.\nA film about a shark\n\nJ a _ _\n";
+        output.numPlayers = 3;
+        output.playerStats = new HashMap<>();
+        output.playerStats.put("alice", "Waiting... score: 4, lives: 3, hints: 2");
+        output.playerStats.put("bob", "Waiting... score: 7, lives: 5, hints: 1");
+        output.playerStats.put("charlie", "Active Player! score: 0, lives: 4, hints: 3");
+
+        MatchOutputDelta delta = new MatchOutputDelta();
+        delta.seq = 42;
+        delta.textContent = output.textContent;
+        delta.playerStats = new HashMap<>();
+        delta.playerStats.put("bob", "Waiting... score: 7, lives: 5, hints: 1");
+
+        MatchInput input = new MatchInput();
+        input.sysCommand = "";
+        input.gameMove = "e";
+
+        GameDataResponseBody game = new GameDataResponseBody();
+        game.id = "12";
+        game.ownerName = "alice";
+        game.title = "Movies";
+        game.accessLevel = GameAccessLevel.PUBLIC;
+        game.genre = GameGenre.HANGMAN;
+
+        MatchDataResponseBody match = new MatchDataResponseBody();
+        match.gameTitle = "Movies";
+        match.matchId = "7";
+        match.hostName = "alice";
+        match.genre = GameGenre.HANGMAN;
+        match.numPlayers = 2;
+        match.maxPlayers = 4;
+
+        HashMap<String, Double> rewards = new HashMap<>();
+        rewards.put("Gryffindor", 1.0);
+        rewards.put("Slytherin", 0.5);
+        rewards.put("Ravenclaw", 0.0);
+        QuizAnswer answer = new QuizAnswer("A broomstick", rewards);
+
+        compare("MatchOutput", output, MatchOutput.class);
+        compare("MatchOutputDelta", delta, MatchOutputDelta.class);
+        compare("MatchInput", input, MatchInput.class);
+        compare("GameDataResponseBody", game, GameDataResponseBody.class);
+        compare("MatchDataResponseBody", match, MatchDataResponseBody.class);
+        compare("QuizAnswer", answer, QuizAnswer.class);
+    }
+
+    private static <T> void compare(String name, T value, Class<T> type) throws Exception {
+        Gson reflective = new Gson();
+        Gson shared = SharedGson.get();
+        String json = shared.toJson(value);
+        if (!json.equals(reflective.toJson(value))) {
+            throw new IllegalStateException(name + " is written differently by the two paths");
+        }
+        Harness.measure(name + " write, reflective", OPERATIONS, () -> Harness.consume(reflective.toJson(value)));
+        Harness.measure(name + " write, adapter", OPERATIONS, () -> Harness.consume(shared.toJson(value)));
+        Harness.measure(name + " read, reflective", OPERATIONS, () -> Harness.consume(reflective.fromJson(json, type)));
+        Harness.measure(name + " read, adapter", OPERATIONS, () -> Harness.consume(shared.fromJson(json, type)));
+    }
+}
@@ -49,13 +49,19 @@ function promptAttributes(map) {
     document.getElementById("multipleChoice").onclick = restrictOptions;
 }
 
-function addOption(label, checked) {
+function addOption(label, value) {
     const labelEl = document.createElement("label");
     labelEl.innerHTML = label;
     const input = document.createElement("input");
-    input.type = "checkbox";
     input.setAttribute("id", label);
-    input.checked = checked === "true";
+    if (value === "true" || value === "false") {
+        input.type = "checkbox";
+        input.checked = value === "true";
+    } else {
+        input.type = "number";
+        input.min = "0";
+        input.value = value;
+    }
 
     labelEl.prepend(input);
 
@@ -81,7 +87,7 @@ function getAttrMap() {
     };
 
     for (const el of inputs) {
-        attrMap[el.getAttribute("id")] = el.checked.toString();
+        attrMap[el.getAttribute("id")] = el.type === "checkbox" ? el.checked.toString() : el.value;
     }
 
     return attrMap;
@@ -23,7 +23,8 @@ function listenForClicks() {
 		    xhr.open("POST", "http://localhost:8000/game/create-match");
 
             xhr.onreadystatechange = () => {
-                if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 204) {
+                if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 200) {
+                    sessionStorage.setItem("joinToken", JSON.parse(xhr.response).joinToken);
                     window.location = "http://localhost:8080/pages/play-match.html";
                 } else if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 403) {
                     alert("You're already in a match. Please finish it before starting another one");
@@ -1,25 +1,65 @@
 if (typeof xhr === "undefined") xhr = new XMLHttpRequest();
 
-document.addEventListener("DOMContentLoaded", fetchMatches, false);
+document.addEventListener("DOMContentLoaded", subscribeToLobby, false);
+
+function subscribeToLobby() {
+	if (typeof WebSocket === "undefined") {
+		fetchMatches();
+		return;
+	}
+	const socket = new WebSocket("ws://localhost:8000/lobby");
+
+	socket.onmessage = message => {
+		const event = JSON.parse(message.data);
+		switch (event.type) {
+			case "SNAPSHOT":
+				document.querySelectorAll("#cards-container .card").forEach(card => card.remove());
+				event.matches.forEach(addMatchCard);
+				break;
+			case "CREATED":
+			case "PLAYERS_CHANGED":
+				addMatchCard(event.match);
+				break;
+			default:
+				removeMatchCard(event.matchId);
+		}
+	};
+	socket.onerror = fetchMatches;
+}
 
 function fetchMatches() {
 	xhr.open("GET", "http://localhost:8000/game/available-matches");
 
 	xhr.onreadystatechange = () => {
 		if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 200) {
-			JSON.parse(xhr.response).forEach(match => createCard(match, "JOIN"));
-			listenForClicks();
+			JSON.parse(xhr.response).forEach(addMatchCard);
 		}
 	}
 
 	xhr.send();
 }
 
-function listenForClicks() {
-	document.querySelectorAll("#cards-container .card .overlay .img-container .button").forEach(el => {
-		el.addEventListener("click", () => {
-			window.location = "http://localhost:8080/pages/play-match.html?matchId=" +
-				el.parentElement.parentElement.parentElement.getAttribute("data-id");
-		});
+function findMatchCard(matchId) {
+	return document.querySelector(`#cards-container .card[data-id="${ matchId }"]`);
+}
+
+function addMatchCard(match) {
+	const existing = findMatchCard(match.matchId);
+	if (existing) {
+		existing.querySelector(".description").innerHTML = `Room size: ${ match.numPlayers }/${ match.maxPlayers }`;
+		return;
+	}
+	createCard(match, "JOIN");
+	listenForClick(findMatchCard(match.matchId));
+}
+
+function removeMatchCard(matchId) {
+	const card = findMatchCard(matchId);
+	if (card) card.remove();
+}
+
+function listenForClick(card) {
+	card.querySelector(".overlay .img-container .button").addEventListener("click", () => {
+		window.location = "http://localhost:8080/pages/play-match.html?matchId=" + card.getAttribute("data-id");
 	});
 }
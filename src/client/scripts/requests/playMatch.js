@@ -1,12 +1,20 @@
 let serverSocket;
+let matchState;
+let resyncing = false;
+let sessionToken;
+let turnDeadline;
+let reconnectAttempts = 0;
+const MAX_RECONNECT_ATTEMPTS = 5;
 
 if (typeof xhr === "undefined") xhr = new XMLHttpRequest();
 
 document.addEventListener("DOMContentLoaded", () => {
 	const matchId = window.location.href.split("?matchId=")[1];
 	if (!!matchId) joinMatch(matchId);
-	else document.getElementById("start-button").hidden = false;
-	createSocket();
+	else {
+		document.getElementById("start-button").hidden = false;
+		createSocket();
+	}
 }, false);
 document.getElementById("match-input").addEventListener("keyup", event => {
     if (event.keyCode === 13) sendInput();
@@ -17,6 +25,7 @@ function joinMatch(matchID) {
 
 	xhr.onreadystatechange = () => {
 		if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 200) {
+			sessionStorage.setItem("joinToken", JSON.parse(xhr.response).joinToken);
 			createSocket();
 		} else if (xhr.readyState === XMLHttpRequest.DONE && xhr.status === 400) {
 			alert("You're already in a match");
@@ -34,20 +43,72 @@ function joinMatch(matchID) {
 }
 
 function createSocket() {
-	serverSocket = new WebSocket("ws://localhost:8888");
+	serverSocket = new WebSocket("ws://localhost:8000/?mode=delta");
 
 	serverSocket.onopen = function(event) {
-		serverSocket.send(sessionStorage.getItem("userId"));
+		if (!sessionToken) {
+			sessionToken = sessionStorage.getItem("joinToken");
+			sessionStorage.removeItem("joinToken");
+		}
+		serverSocket.send(matchState ? `${ sessionToken } ${ matchState.seq }` : sessionToken);
+	}
+
+	serverSocket.onclose = function(event) {
+		if (event.code === 1000 || reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) return;
+		reconnectAttempts++;
+		resyncing = false;
+		setTimeout(createSocket, 1000 * reconnectAttempts);
 	}
 
 	serverSocket.onmessage = function(event) {
-		document.getElementById("match-content").textContent = JSON.parse(event.data).textContent;
-		displayStats(JSON.parse(event.data));
+		reconnectAttempts = 0;
+		const data = JSON.parse(event.data);
+		if (data.snapshot) {
+			matchState = data;
+			resyncing = false;
+		}
+		else if (!matchState || data.seq !== matchState.seq + 1) return requestResync();
+		else applyDelta(data);
+
+		if (data.turnTimeLeftMillis !== undefined) {
+			turnDeadline = data.turnTimeLeftMillis > 0 ? Date.now() + data.turnTimeLeftMillis : undefined;
+		}
+		document.getElementById("match-content").textContent = matchState.textContent;
+		displayStats(matchState);
 	}
 }
 
+setInterval(() => {
+	if (matchState && turnDeadline) displayStats(matchState);
+}, 1000);
+
+function applyDelta(delta) {
+	matchState.seq = delta.seq;
+	if (delta.status !== undefined) matchState.status = delta.status;
+	if (delta.textContent !== undefined) matchState.textContent = delta.textContent;
+	if (delta.numPlayers !== undefined) matchState.numPlayers = delta.numPlayers;
+	if (delta.turnTimeLeftMillis !== undefined) matchState.turnTimeLeftMillis = delta.turnTimeLeftMillis;
+	Object.assign(matchState.playerStats, delta.playerStats);
+	for (const player of delta.removedPlayers || []) delete matchState.playerStats[player];
+}
+
+function requestResync() {
+	if (resyncing) return;
+	resyncing = true;
+	matchState = undefined;
+	serverSocket.send(JSON.stringify({
+		sysCommand: "resync",
+		gameMove: ""
+	}));
+}
+
 function displayStats(data) {
-	document.getElementById("player-stats").textContent = `Player count: ${ data.numPlayers }\n\nPlayer stats:\n\n`;
+	document.getElementById("player-stats").textContent = `Player count: ${ data.numPlayers }\n\n`;
+	if (turnDeadline) {
+		const secondsLeft = Math.max(0, Math.ceil((turnDeadline - Date.now()) / 1000));
+		document.getElementById("player-stats").textContent += `Time left: ${ secondsLeft }s\n\n`;
+	}
+	document.getElementById("player-stats").textContent += "Player stats:\n\n";
 
 	for (const [key, value] of Object.entries(data.playerStats)) {
 		document.getElementById("player-stats").textContent += `${ key }: ${ value }\n`;
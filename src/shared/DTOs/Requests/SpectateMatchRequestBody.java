@@ -0,0 +1,12 @@
+package shared.DTOs.Requests;
+
+/**
+ * SpectateMatchRequestBody Class
+ * The contents used to perform spectate match request
+ */
+public class SpectateMatchRequestBody {
+    /**
+     * the watched match's id
+     */
+    public String matchID;
+}
@@ -0,0 +1,16 @@
+package shared.DTOs.Responses;
+
+/**
+ * JoinMatchResponseBody Class
+ * The contents sent back when a user creates or joins a match
+ */
+public class JoinMatchResponseBody {
+    /**
+     * the id of the match the user is now part of
+     */
+    public String matchID;
+    /**
+     * the one-time token that the match socket must send as its first message
+     */
+    public String joinToken;
+}
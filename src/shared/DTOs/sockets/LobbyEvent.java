@@ -0,0 +1,32 @@
+package shared.DTOs.sockets;
+
+import shared.DTOs.Responses.MatchDataResponseBody;
+import shared.constants.LobbyEventType;
+
+import java.util.List;
+
+/**
+ * LobbyEvent Class
+ * <p>
+ * A change to the matches that can be joined, pushed to the lobby sockets. A {@link LobbyEventType#SNAPSHOT} replaces
+ * the whole list, {@link LobbyEventType#CREATED} and {@link LobbyEventType#PLAYERS_CHANGED} add or replace one match,
+ * and {@link LobbyEventType#STARTED} and {@link LobbyEventType#REMOVED} take one out of the list.
+ */
+public class LobbyEvent {
+    /**
+     * the kind of change
+     */
+    public LobbyEventType type;
+    /**
+     * the ID of the match that changed, unless this is a snapshot
+     */
+    public String matchId;
+    /**
+     * the match that was created or changed
+     */
+    public MatchDataResponseBody match;
+    /**
+     * every match that can be joined, in a snapshot
+     */
+    public List<MatchDataResponseBody> matches;
+}
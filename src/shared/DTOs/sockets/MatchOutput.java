@@ -24,4 +24,8 @@ public class MatchOutput {
      * A mapping of username to game specific stats
      */
     public Map<String, String> playerStats;
+    /**
+     * the milliseconds left in the current turn, or 0 if the turn has no time limit
+     */
+    public long turnTimeLeftMillis;
 }
@@ -0,0 +1,47 @@
+package shared.DTOs.sockets;
+
+import shared.constants.MatchStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MatchOutputDelta Class
+ * <p>
+ * A match output in the delta protocol mode. A snapshot carries every field, any other message only carries the fields
+ * that changed since the message with the previous sequence number.
+ */
+public class MatchOutputDelta {
+    /**
+     * the version of the match output this message brings the client to
+     */
+    public long seq;
+    /**
+     * whether this message is a full snapshot rather than a change to the previous version
+     */
+    public boolean snapshot;
+    /**
+     * the current match status, if changed
+     */
+    public MatchStatus status;
+    /**
+     * the updated text content, if changed
+     */
+    public String textContent;
+    /**
+     * the current number of players, if changed
+     */
+    public Integer numPlayers;
+    /**
+     * the milliseconds left in the current turn, if changed
+     */
+    public Long turnTimeLeftMillis;
+    /**
+     * the stats of the players whose stats changed or who joined
+     */
+    public Map<String, String> playerStats;
+    /**
+     * the usernames of the players who left
+     */
+    public List<String> removedPlayers;
+}
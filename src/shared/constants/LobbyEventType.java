@@ -0,0 +1,27 @@
+package shared.constants;
+
+/**
+ *  LobbyEventType Constants
+ */
+public enum LobbyEventType {
+    /**
+     * every match that can be joined, sent first on a lobby socket
+     */
+    SNAPSHOT,
+    /**
+     * a match that can be joined was created
+     */
+    CREATED,
+    /**
+     * a player joined or left a match that can be joined
+     */
+    PLAYERS_CHANGED,
+    /**
+     * a match started and can no longer be joined
+     */
+    STARTED,
+    /**
+     * a match was removed before it started
+     */
+    REMOVED
+}
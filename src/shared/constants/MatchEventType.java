@@ -0,0 +1,35 @@
+package shared.constants;
+
+/**
+ *  MatchEventType Constants
+ */
+public enum MatchEventType {
+    /**
+     * a player joined the match
+     */
+    PLAYER_JOINED,
+    /**
+     * a player left the match
+     */
+    PLAYER_LEFT,
+    /**
+     * the host started the match
+     */
+    STARTED,
+    /**
+     * a move was played, or refused with a message to the players
+     */
+    MOVE_APPLIED,
+    /**
+     * the turn passed to the next player, or to the next question
+     */
+    TURN_ADVANCED,
+    /**
+     * the match is over
+     */
+    FINISHED,
+    /**
+     * the match was dropped from the server, and nothing is published after
+     */
+    EVICTED
+}
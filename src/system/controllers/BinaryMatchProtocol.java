@@ -0,0 +1,248 @@
+package system.controllers;
+
+import shared.DTOs.sockets.MatchInput;
+import shared.DTOs.sockets.MatchOutput;
+import shared.DTOs.sockets.MatchOutputDelta;
+import shared.constants.MatchStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BinaryMatchProtocol Class
+ * <p>
+ * The compact encoding of the match socket messages, used by the sockets that negotiate the {@link #BINARY} subprotocol
+ * through Sec-WebSocket-Protocol. Sockets that don't, or that pick {@link #JSON}, keep the json text messages.
+ * <p>
+ * Every message is one binary frame starting with a type byte. Integers are unsigned LEB128 varints, strings are a
+ * varint byte length followed by UTF-8, and a match status is the one byte ordinal of {@link MatchStatus}. Players are
+ * referred to by their index in the {@link PlayerNames} of the match, which the server sends in a {@link #NAMES}
+ * message before any output that uses them:
+ * <ul>
+ *     <li>{@link #NAMES}: count, then count times index and name</li>
+ *     <li>{@link #OUTPUT}: status, textContent, numPlayers, turnTimeLeftMillis, stat count, then stat count times index
+ *     and stats</li>
+ *     <li>{@link #DELTA}: seq, a flag byte ({@link #SNAPSHOT}, {@link #HAS_STATUS}, {@link #HAS_TEXT},
+ *     {@link #HAS_PLAYERS}, {@link #HAS_TURN_TIME}), the flagged fields in that order, stat count, stats as in {@link #OUTPUT}, removed player
+ *     count, then their indices</li>
+ *     <li>{@link #INPUT}, sent by the client: sysCommand, gameMove</li>
+ * </ul>
+ */
+class BinaryMatchProtocol {
+
+    /**
+     * the subprotocol of the binary encoding
+     */
+    static final String BINARY = "wordgame.binary.v2";
+    /**
+     * the subprotocol of the json encoding, also used when no subprotocol is negotiated
+     */
+    static final String JSON = "wordgame.json";
+
+    static final int NAMES = 1;
+    static final int OUTPUT = 2;
+    static final int DELTA = 3;
+    static final int INPUT = 16;
+
+    static final int SNAPSHOT = 1;
+    static final int HAS_STATUS = 2;
+    static final int HAS_TEXT = 4;
+    static final int HAS_PLAYERS = 8;
+    static final int HAS_TURN_TIME = 16;
+
+    /**
+     * PlayerNames Class
+     * <p>
+     * The indices of the players of one match. A name keeps its index for the whole match, even after its player left,
+     * so a client never has to forget one.
+     */
+    static class PlayerNames {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * Gives an index to every name that doesn't have one yet.
+         *
+         * @param players the names of the players
+         * @return the index of the first new name, or -1 if every name was known
+         */
+        int intern(Iterable<String> players) {
+            int first = names.size();
+            for (String player : players) {
+                if (!indices.containsKey(player)) {
+                    indices.put(player, names.size());
+                    names.add(player);
+                }
+            }
+            return first < names.size() ? first : -1;
+        }
+
+        /**
+         * @param from the first index to include
+         * @return a {@link #NAMES} message of the names from that index on
+         */
+        byte[] encode(int from) {
+            Writer out = new Writer();
+            out.write(NAMES);
+            out.putVarint(names.size() - from);
+            for (int i = from; i < names.size(); i++) {
+                out.putVarint(i);
+                out.putString(names.get(i));
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * @return the number of names with an index
+         */
+        int size() {
+            return names.size();
+        }
+
+        private int indexOf(String player) {
+            return indices.get(player);
+        }
+    }
+
+    /**
+     * Picks the subprotocol of a socket.
+     *
+     * @param offers the Sec-WebSocket-Protocol header of the client, may be null
+     * @return the first offered subprotocol the server speaks, or null if there is none
+     */
+    static String negotiate(String offers) {
+        if (offers == null) {
+            return null;
+        }
+        for (String offer : offers.split(",")) {
+            offer = offer.trim();
+            if (offer.equals(BINARY) || offer.equals(JSON)) {
+                return offer;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param output the match output
+     * @param names  the player indices of the match, which must know every player of the output
+     * @return the {@link #OUTPUT} message
+     */
+    static byte[] encode(MatchOutput output, PlayerNames names) {
+        Writer out = new Writer();
+        out.write(OUTPUT);
+        out.write(output.status.ordinal());
+        out.putString(output.textContent);
+        out.putVarint(output.numPlayers);
+        out.putVarint(output.turnTimeLeftMillis);
+        putStats(out, output.playerStats, names);
+        return out.toByteArray();
+    }
+
+    /**
+     * @param delta the match output delta
+     * @param names the player indices of the match, which must know every player of the delta
+     * @return the {@link #DELTA} message
+     */
+    static byte[] encode(MatchOutputDelta delta, PlayerNames names) {
+        Writer out = new Writer();
+        out.write(DELTA);
+        out.putVarint(delta.seq);
+        out.write((delta.snapshot ? SNAPSHOT : 0) | (delta.status != null ? HAS_STATUS : 0)
+                | (delta.textContent != null ? HAS_TEXT : 0) | (delta.numPlayers != null ? HAS_PLAYERS : 0)
+                | (delta.turnTimeLeftMillis != null ? HAS_TURN_TIME : 0));
+        if (delta.status != null)
+            out.write(delta.status.ordinal());
+        if (delta.textContent != null)
+            out.putString(delta.textContent);
+        if (delta.numPlayers != null)
+            out.putVarint(delta.numPlayers);
+        if (delta.turnTimeLeftMillis != null)
+            out.putVarint(delta.turnTimeLeftMillis);
+        putStats(out, delta.playerStats, names);
+        List<String> removed = delta.removedPlayers;
+        out.putVarint(removed == null ? 0 : removed.size());
+        if (removed != null) {
+            for (String player : removed) {
+                out.putVarint(names.indexOf(player));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void putStats(Writer out, Map<String, String> stats, PlayerNames names) {
+        out.putVarint(stats == null ? 0 : stats.size());
+        if (stats != null) {
+            for (Map.Entry<String, String> stat : stats.entrySet()) {
+                out.putVarint(names.indexOf(stat.getKey()));
+                out.putString(stat.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param message an {@link #INPUT} message
+     * @return the decoded input, or null if the message is malformed
+     */
+    static MatchInput decodeInput(ByteBuffer message) {
+        try {
+            if (message.get() != INPUT) {
+                return null;
+            }
+            MatchInput input = new MatchInput();
+            input.sysCommand = getString(message);
+            input.gameMove = getString(message);
+            return message.hasRemaining() ? null : input;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static String getString(ByteBuffer in) {
+        long length = getVarint(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("String past the end of the message");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class Writer extends ByteArrayOutputStream {
+        Writer() {
+            super(64);
+        }
+
+        void putVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void putString(String s) {
+            byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+}
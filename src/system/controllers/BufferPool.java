@@ -0,0 +1,92 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BufferPool Class
+ * <p>
+ * Recycles byte buffers in power-of-two size classes so the per-message socket path doesn't allocate. Buffers may be
+ * acquired on one thread and released on another.
+ */
+class BufferPool {
+
+    private static final int MIN_CLASS_SHIFT = 8; // 256 bytes
+
+    private final boolean direct;
+    private final int maxPerClass;
+    private final List<Queue<ByteBuffer>> freeBuffers;
+    private final AtomicInteger[] freeCounts;
+
+    /**
+     * Constructor of BufferPool
+     *
+     * @param direct        whether the pooled buffers are direct buffers
+     * @param maxPooledSize the largest buffer that gets pooled, larger requests are allocated on demand
+     * @param maxPerClass   the number of idle buffers kept per size class
+     */
+    BufferPool(boolean direct, int maxPooledSize, int maxPerClass) {
+        this.direct = direct;
+        this.maxPerClass = maxPerClass;
+        int classes = Math.max(1, classIndex(maxPooledSize) + 1);
+        freeBuffers = new ArrayList<>(classes);
+        freeCounts = new AtomicInteger[classes];
+        for (int i = 0; i < classes; i++) {
+            freeBuffers.add(new ConcurrentLinkedQueue<>());
+            freeCounts[i] = new AtomicInteger();
+        }
+    }
+
+    private static int classIndex(int capacity) {
+        if (capacity <= 1 << MIN_CLASS_SHIFT) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - MIN_CLASS_SHIFT;
+    }
+
+    /**
+     * Returns an empty buffer in write mode that can hold at least the given number of bytes.
+     *
+     * @param capacity the minimum capacity
+     * @return a cleared buffer
+     */
+    ByteBuffer acquire(int capacity) {
+        int index = classIndex(capacity);
+        if (index >= freeBuffers.size()) {
+            return allocate(capacity);
+        }
+        ByteBuffer buffer = freeBuffers.get(index).poll();
+        if (buffer == null) {
+            return allocate(1 << (index + MIN_CLASS_SHIFT));
+        }
+        freeCounts[index].decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back to the pool. The caller must not use the buffer afterwards.
+     *
+     * @param buffer a buffer obtained from {@link #acquire(int)}
+     */
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int index = classIndex(capacity);
+        if (index >= freeBuffers.size() || capacity != 1 << (index + MIN_CLASS_SHIFT) || buffer.isDirect() != direct) {
+            return;
+        }
+        if (freeCounts[index].incrementAndGet() <= maxPerClass) {
+            freeBuffers.get(index).add(buffer);
+        } else {
+            freeCounts[index].decrementAndGet();
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
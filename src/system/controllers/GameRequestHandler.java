@@ -3,8 +3,10 @@ package system.controllers;
 import com.sun.net.httpserver.HttpExchange;
 import shared.DTOs.Requests.*;
 import shared.DTOs.Responses.DesignQuestionResponseBody;
+import shared.DTOs.Responses.JoinMatchResponseBody;
 import shared.DTOs.Responses.MatchDataResponseBody;
 import shared.constants.IDType;
+import shared.constants.MatchStatus;
 import shared.constants.UserRole;
 import shared.exceptions.use_case_exceptions.*;
 import shared.DTOs.Responses.GameDataResponseBody;
@@ -15,7 +17,6 @@ import system.use_cases.managers.UserManager;
 
 import java.io.*;
 
-import java.net.ServerSocket;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -24,12 +25,12 @@ import java.util.Set;
  */
 public class GameRequestHandler extends RequestHandler {
 
-    private final static int PORT = 8888;
     private final GameManager gameManager;
     private final TemplateManager templateManager;
     private final UserManager userManager;
     private final MatchManager matchManager;
-    private final ServerSocket serverSocket;
+    private final WebSocketServer webSocketServer;
+    private final ListingCache listings;
 
     /**
      * Constructor of GameRequestHandler
@@ -38,20 +39,19 @@ public class GameRequestHandler extends RequestHandler {
      * @param templateManager the template manager that contains all template and can manipulate them
      * @param userManager     the user manager that contains user games and can manipulate them
      * @param matchManager    the match manager that contains all match and can manipulate them
+     * @param webSocketServer the server that accepts the players' match sockets
      */
     public GameRequestHandler(GameManager gameManager,
                               TemplateManager templateManager,
                               UserManager userManager,
-                              MatchManager matchManager) {
+                              MatchManager matchManager,
+                              WebSocketServer webSocketServer) {
         this.gameManager = gameManager;
         this.templateManager = templateManager;
         this.userManager = userManager;
         this.matchManager = matchManager;
-        try {
-            serverSocket = new ServerSocket(PORT);
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot create server socket, IO problem.");
-        }
+        this.webSocketServer = webSocketServer;
+        this.listings = new ListingCache(ListingCache.DEFAULT_CAPACITY);
     }
 
     /**
@@ -80,8 +80,10 @@ public class GameRequestHandler extends RequestHandler {
                 break;
             case "prev-access-level":
                 handleGetPrevAccessLevel(exchange);
+                break;
             case "available-games":
                 handleGetAvailableGamesByUserID(exchange);
+                break;
             default:
                 sendResponse(exchange, 404, "Unidentified Request.");
         }
@@ -115,6 +117,9 @@ public class GameRequestHandler extends RequestHandler {
             case "leave-match":
                 handleLeaveMatch(exchange);
                 break;
+            case "spectate-match":
+                handleSpectateMatch(exchange);
+                break;
             case "access-level":
                 handleAccessLevel(exchange);
                 break;
@@ -127,7 +132,7 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleGetPrevAccessLevel(HttpExchange exchange) throws IOException {
-        AccessLevelRequestBody body = gson.fromJson(getRequestBody(exchange), AccessLevelRequestBody.class);
+        AccessLevelRequestBody body = readRequestBody(exchange, AccessLevelRequestBody.class);
         String prevAL;
         try {
             prevAL = gameManager.getPreviousAccessLevel(body.gameID).name();
@@ -138,7 +143,7 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleUndoAccessLevel(HttpExchange exchange) throws IOException {
-        UndoAccessLevelRequestBody body = gson.fromJson(getRequestBody(exchange), UndoAccessLevelRequestBody.class);
+        UndoAccessLevelRequestBody body = readRequestBody(exchange, UndoAccessLevelRequestBody.class);
         try {
             gameManager.undoSetGameAccessLevel(body.gameID);
             sendResponse(exchange, 204, null);
@@ -149,7 +154,7 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleAccessLevel(HttpExchange exchange) throws IOException {
-        AccessLevelRequestBody body = gson.fromJson(getRequestBody(exchange), AccessLevelRequestBody.class);
+        AccessLevelRequestBody body = readRequestBody(exchange, AccessLevelRequestBody.class);
         try {
             gameManager.setGameAccessLevel(body.gameID, body.accessLevel);
             sendResponse(exchange, 204, null);
@@ -159,7 +164,7 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleLeaveMatch(HttpExchange exchange) throws IOException {
-        LeaveMatchRequestBody body = gson.fromJson(getRequestBody(exchange), LeaveMatchRequestBody.class);
+        LeaveMatchRequestBody body = readRequestBody(exchange, LeaveMatchRequestBody.class);
         try {
             matchManager.removePlayer(body.userID, body.matchID);
             sendResponse(exchange, 204, null);
@@ -172,11 +177,13 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleJoinMatch(HttpExchange exchange) throws IOException {
-        JoinMatchRequestBody body = gson.fromJson(getRequestBody(exchange), JoinMatchRequestBody.class);
+        JoinMatchRequestBody body = readRequestBody(exchange, JoinMatchRequestBody.class);
         try {
             matchManager.addPlayer(body.userID, userManager.getUsername(body.userID), body.matchID);
-            ClientSocketSeeker clientSeeker = new ClientSocketSeeker(matchManager, serverSocket, body.userID, body.matchID);
-            clientSeeker.start();
+            JoinMatchResponseBody res = new JoinMatchResponseBody();
+            res.matchID = body.matchID;
+            res.joinToken = webSocketServer.expectPlayer(body.userID, body.matchID);
+            sendJsonResponse(exchange, 200, res);
         } catch (InvalidIDException e) {
             if (e.getIDType() == IDType.MATCH)
                 sendResponse(exchange, 403, "Match already started or the given ID is invalid.");
@@ -189,8 +196,24 @@ public class GameRequestHandler extends RequestHandler {
         }
     }
 
+    private void handleSpectateMatch(HttpExchange exchange) throws IOException {
+        SpectateMatchRequestBody body = readRequestBody(exchange, SpectateMatchRequestBody.class);
+        try {
+            if (matchManager.getMatchStatus(body.matchID) != MatchStatus.ONGOING) {
+                sendResponse(exchange, 403, "Only ongoing matches can be watched.");
+                return;
+            }
+            JoinMatchResponseBody res = new JoinMatchResponseBody();
+            res.matchID = body.matchID;
+            res.joinToken = webSocketServer.expectSpectator(body.matchID);
+            sendJsonResponse(exchange, 200, res);
+        } catch (InvalidIDException e) {
+            sendResponse(exchange, 404, "The match ID is invalid.");
+        }
+    }
+
     private void handleCancelBuilder(HttpExchange exchange) throws IOException {
-        CancelBuilderRequestBody body = gson.fromJson(getRequestBody(exchange), CancelBuilderRequestBody.class);
+        CancelBuilderRequestBody body = readRequestBody(exchange, CancelBuilderRequestBody.class);
         try {
             gameManager.destroyBuilder(body.userID);
             sendResponse(exchange, 204, null);
@@ -200,7 +223,7 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleMakeDesignChoice(HttpExchange exchange) throws IOException {
-        DesignChoiceRequestBody body = gson.fromJson(getRequestBody(exchange), DesignChoiceRequestBody.class);
+        DesignChoiceRequestBody body = readRequestBody(exchange, DesignChoiceRequestBody.class);
         try {
             gameManager.makeDesignChoice(body.userID, body.designChoice);
             try {
@@ -211,7 +234,7 @@ public class GameRequestHandler extends RequestHandler {
             } catch (NotReadyException e) {
                 DesignQuestionResponseBody res = new DesignQuestionResponseBody();
                 res.designQuestion = gameManager.getDesignQuestion(body.userID);
-                sendResponse(exchange, 200, gson.toJson(res));
+                sendJsonResponse(exchange, 200, res);
             } catch (InvalidIDException e) {
                 throw new RuntimeException("user id is invalid. This should never happen.");
             }
@@ -223,33 +246,33 @@ public class GameRequestHandler extends RequestHandler {
     }
 
     private void handleCreateMatch(HttpExchange exchange) throws IOException {
-        String data = getRequestBody(exchange);
-        CreateMatchRequestBody body = gson.fromJson(data, CreateMatchRequestBody.class);
+        CreateMatchRequestBody body = readRequestBody(exchange, CreateMatchRequestBody.class);
 
         try {
             String templateID = gameManager.getTemplateID(body.gameID);
             String matchID = matchManager.newMatch(body.userID, userManager.getUsername(body.userID),
                     gameManager.getGame(body.gameID),
                     templateManager.getTemplate(templateID));
-            sendResponse(exchange, 204, null); // Telling the client that match is successfully created.
-            ClientSocketSeeker clientSeeker = new ClientSocketSeeker(matchManager, serverSocket, body.userID, matchID);
-            clientSeeker.start();
+            JoinMatchResponseBody res = new JoinMatchResponseBody();
+            res.matchID = matchID;
+            res.joinToken = webSocketServer.expectPlayer(body.userID, matchID);
+            sendJsonResponse(exchange, 200, res);
         } catch (InvalidIDException e) {
             sendResponse(exchange, 400, "One of the provided IDs is invalid.");
         }
     }
 
     private void handleCreateBuilder(HttpExchange exchange) throws IOException {
-        CreateGameBuilderRequestBody body = gson.fromJson(getRequestBody(exchange), CreateGameBuilderRequestBody.class);
+        CreateGameBuilderRequestBody body = readRequestBody(exchange, CreateGameBuilderRequestBody.class);
         DesignQuestionResponseBody question = new DesignQuestionResponseBody();
         try {
             gameManager.initiateGameBuilder(body.userID, templateManager.getTemplate(body.templateID));
             question.designQuestion = gameManager.getDesignQuestion(body.userID);
-            sendResponse(exchange, 201, gson.toJson(question));
+            sendJsonResponse(exchange, 201, question);
         } catch (CreationInProgressException e) {
             try {
                 question.designQuestion = gameManager.getDesignQuestion(body.userID);
-                sendResponse(exchange, 200, gson.toJson(question));
+                sendJsonResponse(exchange, 200, question);
             } catch (NoCreationInProgressException noCreationInProgressException) {
                 throw new RuntimeException("No creation in progress. This should never happen.");
             }
@@ -264,10 +287,10 @@ public class GameRequestHandler extends RequestHandler {
         String templateID = getQueryArgFromGET(exchange);
         if (templateID == null)
             return;
-        sendResponse(exchange, 200, getPublicGameDataByTemplate(templateID));
+        sendListingResponse(exchange, listings, gameListingTag(), () -> getPublicGameDataByTemplate(templateID));
     }
 
-    private String getPublicGameDataByTemplate(String templateID) {
+    private Set<GameDataResponseBody> getPublicGameDataByTemplate(String templateID) {
         Set<String> allPublicGames = gameManager.getAllPublicGamesID();
         Set<GameDataResponseBody> dataSet = new HashSet<>();
         for (String gameID : allPublicGames) {
@@ -287,27 +310,21 @@ public class GameRequestHandler extends RequestHandler {
             }
         }
 
-        return gson.toJson(dataSet);
+        return dataSet;
     }
 
     private void handleGetAllGameMatches(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, 200, getAvailableGameMatchesData());
+        sendListingResponse(exchange, listings,
+                listings.etag(matchManager.getVersion(), gameManager.getVersion()),
+                this::getAvailableGameMatchesData);
     }
 
-    private String getAvailableGameMatchesData() {
+    private Set<MatchDataResponseBody> getAvailableGameMatchesData() {
         Set<String> preparingMatches = matchManager.getAllPreparingMatchIds();
         Set<MatchDataResponseBody> dataSet = new HashSet<>();
         for (String id : preparingMatches) {
-            MatchDataResponseBody data = new MatchDataResponseBody();
             try {
-                String gameId = matchManager.getGameIdFromMatch(id);
-                data.gameTitle = gameManager.getGameTitle(gameId);
-                data.matchId = id;
-                data.hostName = matchManager.getHostName(id);
-                data.numPlayers = matchManager.getPlayerCount(id);
-                data.maxPlayers = matchManager.getPlayerCountLimit(id);
-                data.genre = gameManager.getGenre(gameId);
-                dataSet.add(data);
+                dataSet.add(LobbyFeed.describe(matchManager, gameManager, id));
             } catch (InvalidIDException e) {
                 if (e.getIDType() == IDType.MATCH)
                     throw new RuntimeException("The match ID returned from match manager doesn't exist anymore");
@@ -316,12 +333,19 @@ public class GameRequestHandler extends RequestHandler {
             }
         }
 
-        return gson.toJson(dataSet);
+        return dataSet;
     }
 
 
     private void handleGetAllPublicGames(HttpExchange exchange) throws IOException {
-        sendResponse(exchange, 200, getAllPublicGamesData());
+        sendListingResponse(exchange, listings, gameListingTag(), this::getAllPublicGamesData);
+    }
+
+    /**
+     * @return the ETag of the game listings, which show games and the names of their owners
+     */
+    private String gameListingTag() {
+        return listings.etag(gameManager.getVersion(), userManager.getVersion());
     }
 
     private void handleGetAvailableGamesByUserID(HttpExchange exchange) throws IOException {
@@ -329,7 +353,7 @@ public class GameRequestHandler extends RequestHandler {
         if (ownerID == null)
             return;
         try {
-            sendResponse(exchange, 200, getAvailableGameDataByUserID(ownerID));
+            sendListingResponse(exchange, listings, gameListingTag(), () -> getAvailableGameDataByUserID(ownerID));
         } catch (InvalidIDException e) {
             System.out.println("inv");
             sendResponse(exchange, 400, "Invalid User ID.");
@@ -342,7 +366,7 @@ public class GameRequestHandler extends RequestHandler {
         if (userID == null)
             return;
         try {
-            sendResponse(exchange, 200, getOwnedGamesData(userID));
+            sendListingResponse(exchange, listings, gameListingTag(), () -> getOwnedGamesData(userID));
         } catch (InvalidIDException e) {
             sendResponse(exchange, 400, "Invalid User ID.");
         }
@@ -353,13 +377,13 @@ public class GameRequestHandler extends RequestHandler {
         if (userID == null)
             return;
         try {
-            sendResponse(exchange, 200, getPublicOwnedGamesData(userID));
+            sendListingResponse(exchange, listings, gameListingTag(), () -> getPublicOwnedGamesData(userID));
         } catch (InvalidIDException e) {
             sendResponse(exchange, 400, "Invalid User ID.");
         }
     }
 
-    private String getPublicOwnedGamesData(String userID) throws InvalidIDException {
+    private Set<GameDataResponseBody> getPublicOwnedGamesData(String userID) throws InvalidIDException {
         Set<String> ownedIds = userManager.getOwnedGamesID(userID);
         Set<GameDataResponseBody> dataSet = new HashSet<>();
         for (String id : ownedIds) {
@@ -381,11 +405,11 @@ public class GameRequestHandler extends RequestHandler {
             }
         }
 
-        return gson.toJson(dataSet);
+        return dataSet;
     }
 
 
-    private String getOwnedGamesData(String userID) throws InvalidIDException {
+    private Set<GameDataResponseBody> getOwnedGamesData(String userID) throws InvalidIDException {
 
         Set<String> ownedIds = userManager.getOwnedGamesID(userID);
         Set<GameDataResponseBody> dataSet = new HashSet<>();
@@ -406,10 +430,10 @@ public class GameRequestHandler extends RequestHandler {
             dataSet.add(data);
         }
 
-        return gson.toJson(dataSet);
+        return dataSet;
     }
 
-    private String getAvailableGameDataByUserID(String userID) throws InvalidIDException {
+    private Set<GameDataResponseBody> getAvailableGameDataByUserID(String userID) throws InvalidIDException {
         Set<GameDataResponseBody> dataSet = new HashSet<>();
         //duplicates will be take cared by built in
         Set<String> availableGameIDs = new HashSet<>();
@@ -428,10 +452,11 @@ public class GameRequestHandler extends RequestHandler {
             }
         }
 
-        return getJsonDataFromGameIDs(dataSet, availableGameIDs);
+        return getGameDataFromGameIDs(dataSet, availableGameIDs);
     }
 
-    private String getJsonDataFromGameIDs(Set<GameDataResponseBody> dataSet, Set<String> availableGameIDs) {
+    private Set<GameDataResponseBody> getGameDataFromGameIDs(Set<GameDataResponseBody> dataSet,
+                                                             Set<String> availableGameIDs) {
         for (String id : availableGameIDs) {
             GameDataResponseBody game = new GameDataResponseBody();
             game.id = id;
@@ -447,13 +472,13 @@ public class GameRequestHandler extends RequestHandler {
 
             dataSet.add(game);
         }
-        return gson.toJson(dataSet);
+        return dataSet;
     }
 
 
-    private String getAllPublicGamesData() {
+    private Set<GameDataResponseBody> getAllPublicGamesData() {
         Set<GameDataResponseBody> dataSet = new HashSet<>();
         Set<String> publicGames = gameManager.getAllPublicGamesID();
-        return getJsonDataFromGameIDs(dataSet, publicGames);
+        return getGameDataFromGameIDs(dataSet, publicGames);
     }
 }
@@ -0,0 +1,189 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HttpRequest Class
+ * <p>
+ * An HTTP/1.1 request read off a connection: the head, and the body announced by its Content-Length. Requests are
+ * parsed straight out of the read buffer of the connection, one after the other, so pipelined requests are simply left
+ * in the buffer for the next call.
+ */
+class HttpRequest {
+
+    /**
+     * the largest request head accepted
+     */
+    static final int MAX_HEAD_SIZE = 8192;
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final String method;
+    private final String target;
+    private final String version;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    /**
+     * MalformedRequestException Class
+     * <p>
+     * Thrown for a request the server won't serve. The connection answers with the status and closes.
+     */
+    static class MalformedRequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        MalformedRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private HttpRequest(String method, String target, String version, Map<String, String> headers, byte[] body) {
+        this.method = method;
+        this.target = target;
+        this.version = version;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    /**
+     * Parses a complete request from the buffer, consuming it.
+     *
+     * @param buffer      a buffer in read mode
+     * @param maxBodySize the largest body accepted
+     * @return the parsed request, or null if the request is not complete yet (the buffer is left untouched)
+     * @throws MalformedRequestException if the request can't be served
+     */
+    static HttpRequest parse(ByteBuffer buffer, int maxBodySize) throws MalformedRequestException {
+        int end = findHeadEnd(buffer);
+        if (end < 0) {
+            if (buffer.remaining() >= MAX_HEAD_SIZE) {
+                throw new MalformedRequestException(431, "Request head too large");
+            }
+            return null;
+        }
+        if (end - buffer.position() >= MAX_HEAD_SIZE) {
+            throw new MalformedRequestException(431, "Request head too large");
+        }
+        String[] lines = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), end - buffer.position(),
+                StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+            throw new MalformedRequestException(400, "Malformed request line");
+        }
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+            }
+        }
+        if (headers.containsKey("transfer-encoding")) {
+            throw new MalformedRequestException(411, "Only Content-Length bodies are supported");
+        }
+        int length;
+        try {
+            String contentLength = headers.get("content-length");
+            length = contentLength == null ? 0 : Integer.parseInt(contentLength);
+        } catch (NumberFormatException e) {
+            throw new MalformedRequestException(400, "Malformed Content-Length");
+        }
+        if (length < 0 || length > maxBodySize) {
+            throw new MalformedRequestException(413, "Request body too large");
+        }
+        if (buffer.limit() - (end + 4) < length) {
+            return null;
+        }
+        byte[] body = length == 0 ? NO_BODY : new byte[length];
+        buffer.position(end + 4);
+        buffer.get(body);
+        return new HttpRequest(requestLine[0], requestLine[1], requestLine[2], headers, body);
+    }
+
+    private static int findHeadEnd(ByteBuffer buffer) {
+        for (int i = buffer.position(); i + 3 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n'
+                    && buffer.get(i + 2) == '\r' && buffer.get(i + 3) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the request method
+     */
+    String getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the HTTP version of the request, such as "HTTP/1.1"
+     */
+    String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the request target, including the query string
+     */
+    String getTarget() {
+        return target;
+    }
+
+    /**
+     * @param name the header name, case insensitive
+     * @return the header value, or null if the header is absent
+     */
+    String getHeader(String name) {
+        return headers.get(name.toLowerCase());
+    }
+
+    /**
+     * @return every header, keyed by lower case name
+     */
+    Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return the request body, empty if there is none
+     */
+    byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * @param name the name of a query parameter
+     * @return the value of the first such parameter in the request target, or null if it is absent
+     */
+    String getQueryParameter(String name) {
+        int start = target.indexOf('?');
+        if (start < 0) {
+            return null;
+        }
+        for (String pair : target.substring(start + 1).split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                return equals < 0 ? "" : pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the connection stays open after the response, which is the default from HTTP/1.1 on
+     */
+    boolean isKeepAlive() {
+        String connection = getHeader("Connection");
+        if (version.equals("HTTP/1.0")) {
+            return connection != null && connection.equalsIgnoreCase("keep-alive");
+        }
+        return connection == null || !connection.equalsIgnoreCase("close");
+    }
+}
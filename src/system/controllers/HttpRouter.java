@@ -0,0 +1,112 @@
+package system.controllers;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * HttpRouter Class
+ * <p>
+ * Routes the REST requests read by the event loops of the {@link WebSocketServer} to the handler of the longest
+ * matching path prefix, like the contexts of the JDK HttpServer it replaces. Handlers may block on the gateways, so they
+ * run on the executor of the router rather than on the loops.
+ */
+public class HttpRouter {
+
+    private final Map<String, HttpHandler> contexts;
+    private final ExecutorService executor;
+    private BufferPool responsePool;
+
+    /**
+     * Constructor of HttpRouter
+     *
+     * @param executor the executor the handlers run on
+     */
+    public HttpRouter(ExecutorService executor) {
+        this.contexts = new LinkedHashMap<>();
+        this.executor = executor;
+    }
+
+    /**
+     * Routes the requests whose path is, or starts with, the given path followed by a slash. Contexts must all be
+     * created before the server starts.
+     *
+     * @param path    the path of the context, such as "/game"
+     * @param handler the handler of the context
+     */
+    public void createContext(String path, HttpHandler handler) {
+        contexts.put(path, handler);
+    }
+
+    /**
+     * @param pool the pool the responses are written into
+     */
+    void setResponsePool(BufferPool pool) {
+        this.responsePool = pool;
+    }
+
+    /**
+     * Stops running handlers.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private HttpHandler route(String path) {
+        HttpHandler match = null;
+        int matchLength = -1;
+        for (Map.Entry<String, HttpHandler> context : contexts.entrySet()) {
+            String prefix = context.getKey();
+            boolean matches = path.equals(prefix) || path.startsWith(prefix.endsWith("/") ? prefix : prefix + "/");
+            if (matches && prefix.length() > matchLength) {
+                match = context.getValue();
+                matchLength = prefix.length();
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Runs the handler of a request and sends its response on the connection.
+     *
+     * @param request    the request
+     * @param connection the connection the request was read from, which waits for the response before reading the
+     *                   next request
+     */
+    void dispatch(HttpRequest request, WebSocketConnection connection) {
+        boolean keepAlive = request.isKeepAlive();
+        URI uri;
+        try {
+            uri = new URI(request.getTarget());
+        } catch (URISyntaxException e) {
+            connection.sendHttpResponse(NioHttpExchange.errorResponse(responsePool, 400, false), false);
+            return;
+        }
+        HttpHandler handler = route(uri.getPath() == null ? "" : uri.getPath());
+        if (handler == null) {
+            connection.sendHttpResponse(NioHttpExchange.errorResponse(responsePool, 404, keepAlive), keepAlive);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                NioHttpExchange exchange = new NioHttpExchange(request, uri, connection, responsePool, keepAlive);
+                boolean handled = true;
+                try {
+                    handler.handle(exchange);
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("A request failed: " + e);
+                    handled = false;
+                }
+                connection.endHttpResponse(exchange.finish(handled) && keepAlive);
+            });
+        } catch (RejectedExecutionException e) {
+            connection.sendHttpResponse(NioHttpExchange.errorResponse(responsePool, 503, false), false);
+        }
+    }
+}
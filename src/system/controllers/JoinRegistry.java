@@ -0,0 +1,132 @@
+package system.controllers;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * JoinRegistry Class
+ * <p>
+ * Holds the players that have joined a match over HTTP, and the spectators that asked to watch one, but haven't opened
+ * their match socket yet. Each pending join is identified by a random token, so a new socket is routed with a single map
+ * lookup.
+ */
+class JoinRegistry {
+
+    /**
+     * A player or a spectator waiting for its socket.
+     */
+    static class PendingJoin {
+        final String token;
+        final String userID;
+        final String matchID;
+        final long expiresAt;
+
+        PendingJoin(String token, String userID, String matchID, long expiresAt) {
+            this.token = token;
+            this.userID = userID;
+            this.matchID = matchID;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return whether the join is a spectator's, which holds no seat in the match
+         */
+        boolean isSpectator() {
+            return userID == null;
+        }
+    }
+
+    private final ConcurrentMap<String, PendingJoin> pendingJoins; // token to pending join
+    private final Queue<PendingJoin> expiryOrder;
+    private final long ttlNanos;
+    private final BiConsumer<String, String> onExpired;
+    private final SecureRandom random;
+
+    /**
+     * Constructor of JoinRegistry
+     *
+     * @param ttlSeconds how long a token stays valid
+     * @param onExpired  called with the userID and matchID of every player join that expires unclaimed
+     */
+    JoinRegistry(int ttlSeconds, BiConsumer<String, String> onExpired) {
+        this.pendingJoins = new ConcurrentHashMap<>();
+        this.expiryOrder = new ConcurrentLinkedQueue<>();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.onExpired = onExpired;
+        this.random = new SecureRandom();
+    }
+
+    /**
+     * Registers a pending join.
+     *
+     * @param userID  the joining player's userID, or null for a spectator
+     * @param matchID the match joined
+     * @return the token that claims this join
+     */
+    String register(String userID, String matchID) {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        PendingJoin join = new PendingJoin(token, userID, matchID, System.nanoTime() + ttlNanos);
+        pendingJoins.put(token, join);
+        expiryOrder.add(join);
+        return token;
+    }
+
+    /**
+     * Claims a pending join. A token can only be claimed once.
+     *
+     * @param token the token sent by the socket
+     * @return the claimed join, or null if the token is unknown or expired
+     */
+    PendingJoin claim(String token) {
+        PendingJoin join = pendingJoins.remove(token);
+        if (join != null && join.expiresAt - System.nanoTime() < 0) {
+            expired(join);
+            return null;
+        }
+        return join;
+    }
+
+    /**
+     * Claims a spectator's pending join. A player's token is left unclaimed, so opening the wrong socket with it doesn't
+     * cost the player their seat.
+     *
+     * @param token the token sent by the socket
+     * @return the claimed join, or null if the token is unknown, expired or a player's
+     */
+    PendingJoin claimSpectator(String token) {
+        PendingJoin join = pendingJoins.get(token);
+        if (join == null || !join.isSpectator() || !pendingJoins.remove(token, join)) {
+            return null;
+        }
+        return join.expiresAt - System.nanoTime() < 0 ? null : join;
+    }
+
+    /**
+     * Drops every join whose token has expired. Tokens share one lifetime, so they expire in registration order
+     * and only the head of the queue needs to be looked at.
+     */
+    void expire() {
+        long now = System.nanoTime();
+        PendingJoin head;
+        while ((head = expiryOrder.peek()) != null && head.expiresAt - now < 0) {
+            expiryOrder.poll();
+            if (pendingJoins.remove(head.token, head)) {
+                expired(head);
+            }
+        }
+    }
+
+    private void expired(PendingJoin join) {
+        if (!join.isSpectator()) {
+            onExpired.accept(join.userID, join.matchID);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package system.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ListingCache Class
+ * <p>
+ * The serialized bodies of the listing endpoints, each stored with the ETag of the catalog versions it was built from.
+ * A request whose If-None-Match holds the current ETag is answered with 304 without building anything, and a request
+ * for a listing whose catalogs haven't changed is served the stored bytes. Entries are keyed by request target, and
+ * the least recently used ones are dropped past the capacity so per-user listings can't grow it without bound.
+ */
+class ListingCache {
+
+    /**
+     * the number of listings kept by default
+     */
+    static final int DEFAULT_CAPACITY = 256;
+
+    private final Map<String, Entry> entries;
+    private final String epoch;
+
+    /**
+     * Loader Interface
+     * <p>
+     * Builds the response body of a listing that isn't cached.
+     *
+     * @param <E> the exception thrown when the listing can't be built
+     */
+    interface Loader<E extends Exception> {
+        Object load() throws E;
+    }
+
+    private static class Entry {
+        final String etag;
+        final byte[] body;
+
+        Entry(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Constructor of ListingCache
+     *
+     * @param capacity the number of listings kept
+     */
+    ListingCache(int capacity) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.epoch = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /**
+     * The versions restart from 0 with the server, so the ETag also holds the time the cache was created, which keeps
+     * an ETag from before a restart from matching.
+     *
+     * @param versions the versions of every catalog a listing is built from
+     * @return the ETag of the listing. It is weak, the order of the listed items isn't stable between builds.
+     */
+    String etag(long... versions) {
+        StringBuilder etag = new StringBuilder("W/\"").append(epoch);
+        for (long version : versions) {
+            etag.append('.').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * @param ifNoneMatch the If-None-Match header of the request, may be null
+     * @param etag        the current ETag of the listing
+     * @return whether the client already has the current listing, by weak comparison
+     */
+    static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param key  the request target of the listing
+     * @param etag the current ETag of the listing
+     * @return the stored body, or null if there is none for this ETag
+     */
+    synchronized byte[] get(String key, String etag) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.etag.equals(etag) ? entry.body : null;
+    }
+
+    /**
+     * Stores the body of a listing, replacing the one built from older versions.
+     *
+     * @param key  the request target of the listing
+     * @param etag the ETag of the versions the body was built from
+     * @param body the serialized body
+     */
+    synchronized void put(String key, String etag, byte[] body) {
+        entries.put(key, new Entry(etag, body));
+    }
+}
@@ -0,0 +1,147 @@
+package system.controllers;
+
+import com.google.gson.Gson;
+import shared.DTOs.Responses.MatchDataResponseBody;
+import shared.DTOs.sockets.LobbyEvent;
+import shared.constants.LobbyEventType;
+import shared.constants.MatchStatus;
+import shared.exceptions.use_case_exceptions.InvalidIDException;
+import system.use_cases.managers.GameManager;
+import system.use_cases.managers.LobbyListener;
+import system.use_cases.managers.MatchManager;
+import system.utilities.json.SharedGson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LobbyFeed Class
+ * <p>
+ * Pushes the matches that can be joined to the sockets opened on the {@code /lobby} path, so the lobby no longer polls
+ * the available-matches listing. A new socket gets a {@link LobbyEventType#SNAPSHOT}, then one {@link LobbyEvent} per
+ * change published by the {@link MatchManager}. Every event is encoded once and the frame is shared by all sockets, so
+ * the work grows with the number of changes rather than with the number of viewers.
+ * <p>
+ * An event only names the match that changed: the match is read back from the managers when the event is sent. A
+ * match that is no longer preparing by then is sent as removed, which keeps every socket in line with the listing even
+ * when changes race.
+ */
+class LobbyFeed implements LobbyListener {
+
+    private final MatchManager matchManager;
+    private final GameManager gameManager;
+    private final BufferPool writePool;
+    private final Gson gson;
+    private final Set<WebSocketConnection> viewers;
+
+    /**
+     * Constructor of LobbyFeed
+     *
+     * @param matchManager the match manager whose lobby is pushed
+     * @param gameManager  the game manager, for the title and genre of the matches
+     * @param writePool    the pool the frames are encoded into
+     */
+    LobbyFeed(MatchManager matchManager, GameManager gameManager, BufferPool writePool) {
+        this.matchManager = matchManager;
+        this.gameManager = gameManager;
+        this.writePool = writePool;
+        this.gson = SharedGson.get();
+        this.viewers = new HashSet<>();
+    }
+
+    /**
+     * Describes a match the way the lobby lists it.
+     *
+     * @param matchManager the match manager
+     * @param gameManager  the game manager
+     * @param matchID      the ID of the match
+     * @return the listing of the match
+     * @throws InvalidIDException if the match, or its game, doesn't exist
+     */
+    static MatchDataResponseBody describe(MatchManager matchManager, GameManager gameManager, String matchID)
+            throws InvalidIDException {
+        MatchDataResponseBody data = new MatchDataResponseBody();
+        String gameId = matchManager.getGameIdFromMatch(matchID);
+        data.gameTitle = gameManager.getGameTitle(gameId);
+        data.matchId = matchID;
+        data.hostName = matchManager.getHostName(matchID);
+        data.numPlayers = matchManager.getPlayerCount(matchID);
+        data.maxPlayers = matchManager.getPlayerCountLimit(matchID);
+        data.genre = gameManager.getGenre(gameId);
+        return data;
+    }
+
+    /**
+     * Sends the snapshot of the lobby to a new socket, then every change after it.
+     *
+     * @param connection the socket
+     */
+    synchronized void addViewer(WebSocketConnection connection) {
+        LobbyEvent snapshot = new LobbyEvent();
+        snapshot.type = LobbyEventType.SNAPSHOT;
+        snapshot.matches = new ArrayList<>();
+        for (String matchID : matchManager.getAllPreparingMatchIds()) {
+            MatchDataResponseBody data = describePreparing(matchID);
+            if (data != null) {
+                snapshot.matches.add(data);
+            }
+        }
+        SharedFrame frame = SharedFrame.text(writePool, gson.toJson(snapshot));
+        connection.write(frame);
+        frame.release();
+        viewers.add(connection);
+    }
+
+    /**
+     * @param connection a closed socket
+     */
+    synchronized void removeViewer(WebSocketConnection connection) {
+        viewers.remove(connection);
+    }
+
+    /**
+     * Sends a change of the lobby to every socket.
+     *
+     * @param change the event naming the match that changed
+     */
+    @Override
+    public synchronized void onLobbyEvent(LobbyEvent change) {
+        if (viewers.isEmpty()) {
+            return;
+        }
+        LobbyEvent event = new LobbyEvent();
+        event.matchId = change.matchId;
+        event.type = change.type;
+        if (change.type == LobbyEventType.CREATED || change.type == LobbyEventType.PLAYERS_CHANGED) {
+            event.match = describePreparing(change.matchId);
+            if (event.match == null) {
+                event.type = LobbyEventType.REMOVED;
+            }
+        }
+        SharedFrame frame = SharedFrame.text(writePool, gson.toJson(event));
+        List<WebSocketConnection> closed = new ArrayList<>();
+        for (WebSocketConnection viewer : viewers) {
+            if (!viewer.write(frame)) {
+                closed.add(viewer);
+            }
+        }
+        viewers.removeAll(closed);
+        frame.release();
+    }
+
+    /**
+     * @return the listing of the match, or null if it can no longer be joined
+     */
+    private MatchDataResponseBody describePreparing(String matchID) {
+        try {
+            if (matchManager.getMatchStatus(matchID) != MatchStatus.PREPARING) {
+                return null;
+            }
+            return describe(matchManager, gameManager, matchID);
+        } catch (InvalidIDException e) {
+            return null;
+        }
+    }
+}
@@ -2,116 +2,548 @@ package system.controllers;
 
 import com.google.gson.Gson;
 import shared.DTOs.sockets.MatchOutput;
+import shared.DTOs.sockets.MatchOutputDelta;
+import shared.constants.MatchEventType;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
+import system.use_cases.game_matches.MatchEvent;
+import system.use_cases.game_matches.MatchListener;
 import system.use_cases.managers.MatchManager;
+import system.utilities.json.SharedGson;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * MatchOutputDispatcher Class
+ * <p>
+ * Broadcasts the output of one match to the sockets of all its players. Each change of the match is looked up, turned
+ * into json and encoded as a frame only once, and the same frame bytes are then queued on every socket. Sockets that
+ * negotiated permessage-deflate share a single compressed frame the same way, and sockets that speak the
+ * {@link BinaryMatchProtocol} share its encoding, which is only built if one of them is connected. The binary sockets
+ * are sent the names of new players before the first output that refers to them.
+ * <p>
+ * Sockets opened in the delta mode get a {@link MatchOutputDelta} snapshot when they join or ask for a resync, and
+ * after that only the fields that changed, numbered with the version of the match output. The last deltas are kept in a
+ * small ring, so a player resuming their session only gets the ones they missed.
+ * <p>
+ * Spectators get the same full output frames as the players, but only the latest one at each
+ * {@link #flushSpectators()}, which the server calls at a lower rate. A change of the match only costs them a pointer
+ * swap, so hundreds of spectators don't slow down the players' moves.
+ * <p>
+ * When the match is evicted, the dispatcher hands over to the server, which closes every socket it serves.
  */
-public class MatchOutputDispatcher implements Observer {
+public class MatchOutputDispatcher implements MatchListener {
 
     /**
      * the match manager that contains all matches and can manipulate them
      */
     public final MatchManager matchManager;
-    /**
-     * the outputs
-     */
-    public final OutputStream outStream;
     /**
      * the current match id
      */
     public final String matchID;
-    /**
-     * current user id
-     */
-    public final String userID;
     /**
      * gson used to convert to json, for communication across parts
      */
     public final Gson gson;
+    private final BufferPool writePool;
+    private final PerMessageDeflate.Compressor compressor;
+    private final WebSocketMetrics metrics;
+    private final Runnable onEvicted;
+    private final BinaryMatchProtocol.PlayerNames playerNames;
+    private final Set<WebSocketConnection> connections;
+    private final Set<WebSocketConnection> deltaConnections;
+    private final Set<WebSocketConnection> spectators;
+    private final Deque<Broadcast> history;
+    private final int historySize;
+    private MatchOutput lastOutput;
+    private long version;
+    private boolean deltaInUse;
+    private Broadcast spectatorOutput;
+    private boolean spectatorsBehind;
+    private int seats;
+    private boolean released;
 
     /**
-     * @param out     the output stream
-     * @param manager the match manager that contains all matches and can manipulate them
-     * @param matchID the observed match id
-     * @param userID  the client user id
+     * @param manager   the match manager that contains all matches and can manipulate them
+     * @param matchID   the observed match id
+     * @param writePool  the pool the encoded frames are taken from
+     * @param compressor  the deflate context of the frames sent to sockets that negotiated compression
+     * @param historySize the number of deltas kept for resuming players
+     * @param metrics     the counters the encoded outputs are reported to
+     * @param onEvicted   called on the thread of the match once it is evicted, without the lock of the dispatcher
      */
-    public MatchOutputDispatcher(OutputStream out, MatchManager manager, String matchID, String userID) {
+    MatchOutputDispatcher(MatchManager manager, String matchID, BufferPool writePool,
+                          PerMessageDeflate.Compressor compressor, int historySize, WebSocketMetrics metrics,
+                          Runnable onEvicted) {
         this.matchManager = manager;
         this.matchID = matchID;
-        outStream = out;
-        this.userID = userID;
-        gson = new Gson();
+        this.writePool = writePool;
+        this.compressor = compressor;
+        this.metrics = metrics;
+        this.onEvicted = onEvicted;
+        this.playerNames = new BinaryMatchProtocol.PlayerNames();
+        this.connections = new CopyOnWriteArraySet<>();
+        this.deltaConnections = new CopyOnWriteArraySet<>();
+        this.spectators = ConcurrentHashMap.newKeySet();
+        this.history = new ArrayDeque<>();
+        this.historySize = historySize;
+        gson = SharedGson.get();
+    }
+
+    /**
+     * Counts a player session or a spectator that uses this dispatcher, connected or not.
+     */
+    synchronized void addSeat() {
+        seats++;
+    }
+
+    /**
+     * Forgets a player session or a spectator.
+     *
+     * @return true if no session is left and the dispatcher wasn't closed already
+     */
+    synchronized boolean removeSeat() {
+        return --seats == 0 && !released;
+    }
+
+    /**
+     * Starts sending the match output to a player's socket, bringing it up to date first.
+     * <p>
+     * A socket in the delta mode gets the deltas it missed after lastSeq if they are all still kept, and a snapshot
+     * otherwise. Any other socket gets the latest match output.
+     *
+     * @param connection the player's socket
+     * @param delta      whether the socket uses the delta mode
+     * @param lastSeq    the last sequence number the player saw, or -1 for a new player
+     */
+    synchronized void addConnection(WebSocketConnection connection, boolean delta, long lastSeq) {
+        sendPlayerNames(connection);
+        if (delta) {
+            deltaConnections.add(connection);
+            deltaInUse = true;
+            if (!replay(connection, lastSeq)) {
+                resync(connection);
+            }
+        } else {
+            connections.add(connection);
+            if (lastOutput != null || fetchLastOutput()) {
+                Broadcast latest = new Broadcast(lastOutput);
+                latest.sendTo(connection, false);
+                latest.release();
+            }
+        }
+    }
+
+    private boolean replay(WebSocketConnection connection, long lastSeq) {
+        if (lastSeq < 0 || lastSeq > version || lastOutput == null) {
+            return false;
+        }
+        if (lastSeq < version && (history.isEmpty() || history.peekFirst().seq > lastSeq + 1)) {
+            return false;
+        }
+        for (Broadcast delta : history) {
+            if (delta.seq > lastSeq) {
+                delta.sendTo(connection, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops sending the match output to a player's socket.
+     *
+     * @param connection the player's socket
+     */
+    synchronized void removeConnection(WebSocketConnection connection) {
+        connections.remove(connection);
+        deltaConnections.remove(connection);
+    }
+
+    /**
+     * Starts sending the match output to a spectator's socket, beginning with the latest output.
+     *
+     * @param connection the spectator's socket
+     */
+    synchronized void addSpectator(WebSocketConnection connection) {
+        sendPlayerNames(connection);
+        spectators.add(connection);
+        if (spectatorOutput == null) {
+            if (lastOutput == null && !fetchLastOutput()) {
+                return;
+            }
+            spectatorOutput = new Broadcast(lastOutput);
+        }
+        spectatorOutput.sendTo(connection, false);
+    }
+
+    /**
+     * Stops sending the match output to a spectator's socket.
+     *
+     * @param connection the spectator's socket
+     */
+    synchronized void removeSpectator(WebSocketConnection connection) {
+        spectators.remove(connection);
+    }
+
+    /**
+     * @return whether any spectator is watching the match
+     */
+    boolean hasSpectators() {
+        return !spectators.isEmpty();
+    }
+
+    /**
+     * Sends the latest match output to the spectators, if it changed since the last call. Only the frame lookup holds
+     * the lock, the spectators are written to without it.
+     */
+    void flushSpectators() {
+        List<WebSocketConnection> targets = new ArrayList<>();
+        List<SharedFrame> frames = new ArrayList<>();
+        synchronized (this) {
+            if (!spectatorsBehind) {
+                return;
+            }
+            spectatorsBehind = false;
+            for (WebSocketConnection spectator : spectators) {
+                SharedFrame frame = spectatorOutput.frameFor(spectator);
+                frame.retain();
+                targets.add(spectator);
+                frames.add(frame);
+            }
+        }
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).writeSnapshot(frames.get(i));
+            frames.get(i).release();
+        }
     }
 
     /**
-     * Sends the latest match output to the output stream when the observed game match is modified.
+     * Sends a snapshot of the current match output to a socket in the delta mode.
      *
-     * @param o   the observed object, not used, required by Observer
-     * @param arg input argument, not used, required by Observer
+     * @param connection the player's socket
+     */
+    synchronized void resync(WebSocketConnection connection) {
+        if (!deltaConnections.contains(connection)) {
+            return;
+        }
+        if (lastOutput == null && !fetchLastOutput()) {
+            return;
+        }
+        Broadcast snapshot = new Broadcast(snapshotOf(lastOutput, version));
+        snapshot.sendTo(connection, false);
+        snapshot.release();
+    }
+
+    /**
+     * Closes the sockets of the players and the spectators normally, so the clients don't try to resume, and frees the
+     * dispatcher. Called by the server once the match is evicted.
+     */
+    synchronized void close() {
+        for (Set<WebSocketConnection> targets : Arrays.asList(connections, deltaConnections, spectators)) {
+            for (WebSocketConnection connection : targets) {
+                connection.getLoop().execute(() -> connection.sendClose(WebSocketFrameCodec.CLOSE_NORMAL));
+            }
+            targets.clear();
+        }
+        release();
+    }
+
+    /**
+     * Frees the kept deltas and the deflate context, once no session is left or the match is evicted. Only the first
+     * call does anything.
+     */
+    synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        for (Broadcast delta : history) {
+            delta.release();
+        }
+        history.clear();
+        if (spectatorOutput != null) {
+            spectatorOutput.release();
+            spectatorOutput = null;
+        }
+        compressor.release();
+    }
+
+    /**
+     * @return the number of match changes broadcast so far
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Queues the match output of a change on every player's socket.
+     * <p>
+     * The sockets are written by their event loops, so a slow player never blocks the thread of the match. A player
+     * that is still behind on the previous output only gets the latest one, as a snapshot in the delta mode.
+     *
+     * @param event the change of the match, with the output the players see after it
      */
     @Override
-    public void update(Observable o, Object arg) {
-        MatchOutput matchOutput = new MatchOutput();
+    public void onMatchEvent(MatchEvent event) {
+        if (event.getType() == MatchEventType.EVICTED) {
+            // The server takes its own lock before this one, so it must not be called with this one held.
+            onEvicted.run();
+        } else {
+            broadcast(event);
+        }
+    }
+
+    private synchronized void broadcast(MatchEvent event) {
+        MatchOutput matchOutput = event.getOutput();
+        version++;
+        int newPlayer = playerNames.intern(matchOutput.playerStats.keySet());
+        if (newPlayer >= 0) {
+            sendNewPlayerNames(newPlayer);
+        }
+        if (!connections.isEmpty() || !spectators.isEmpty()) {
+            Broadcast output = new Broadcast(matchOutput);
+            for (WebSocketConnection connection : connections) {
+                output.sendTo(connection, false);
+            }
+            if (spectators.isEmpty()) {
+                output.release();
+            } else {
+                if (spectatorOutput != null) {
+                    spectatorOutput.release();
+                }
+                spectatorOutput = output;
+                spectatorsBehind = true;
+            }
+        }
+        if (deltaInUse) {
+            broadcastDelta(matchOutput);
+        }
+        lastOutput = matchOutput;
+    }
+
+    private void broadcastDelta(MatchOutput matchOutput) {
+        Broadcast delta = null;
+        Broadcast snapshot = null;
+        for (WebSocketConnection connection : deltaConnections) {
+            boolean behind = lastOutput == null || connection.hasPendingSnapshot();
+            if (behind && snapshot == null) {
+                snapshot = new Broadcast(snapshotOf(matchOutput, version));
+            } else if (!behind && delta == null) {
+                delta = newDelta(matchOutput);
+            }
+            (behind ? snapshot : delta).sendTo(connection, false);
+        }
+        if (delta == null && lastOutput != null) {
+            newDelta(matchOutput);
+        }
+        if (snapshot != null) {
+            snapshot.release();
+        }
+    }
+
+    private Broadcast newDelta(MatchOutput matchOutput) {
+        Broadcast delta = new Broadcast(deltaOf(lastOutput, matchOutput, version), version);
+        history.addLast(delta);
+        if (history.size() > historySize) {
+            history.removeFirst().release();
+        }
+        return delta;
+    }
+
+    private boolean fetchLastOutput() {
         try {
-            matchOutput.status = matchManager.getMatchStatus(matchID);
-            matchOutput.textContent = matchManager.getMatchTextContent(matchID);
-            matchOutput.playerStats = matchManager.getAllPlayerStats(matchID);
-            matchOutput.numPlayers = matchManager.getPlayerCount(matchID);
+            lastOutput = matchManager.getMatchOutput(matchID);
         } catch (InvalidIDException e) {
             System.out.println("Match no longer exists");
+            return false;
         }
-        try {
-            sendWSMessage(outStream, gson.toJson(matchOutput));
-        } catch (IOException e) {
-            try {
-                matchManager.deleteObserver(this, matchID);
-                matchManager.removePlayer(userID, matchID);
-            } catch (InvalidIDException e2) {
-                System.out.println("Player already left or match doesn't exist anymore.");
+        int newPlayer = playerNames.intern(lastOutput.playerStats.keySet());
+        if (newPlayer >= 0) {
+            sendNewPlayerNames(newPlayer);
+        }
+        return true;
+    }
+
+    private void sendPlayerNames(WebSocketConnection connection) {
+        if (connection.isBinary() && playerNames.size() > 0) {
+            SharedFrame names = binaryFrame(playerNames.encode(0));
+            connection.write(names);
+            names.release();
+        }
+    }
+
+    private void sendNewPlayerNames(int from) {
+        SharedFrame names = null;
+        for (Set<WebSocketConnection> targets : Arrays.asList(connections, deltaConnections, spectators)) {
+            for (WebSocketConnection connection : targets) {
+                if (connection.isBinary()) {
+                    if (names == null) {
+                        names = binaryFrame(playerNames.encode(from));
+                    }
+                    // Queued rather than coalesced, so the names always go out before the outputs that use them.
+                    connection.write(names);
+                }
             }
+        }
+        if (names != null) {
+            names.release();
+        }
+    }
+
+    private SharedFrame binaryFrame(byte[] message) {
+        return SharedFrame.of(writePool,
+                WebSocketFrameCodec.encodeFrame(writePool, WebSocketFrameCodec.OPCODE_BINARY, ByteBuffer.wrap(message)));
+    }
 
-            System.out.println("Can't connect to this player. They may have left the match.");
+    /**
+     * A match output or delta encoded at most once in each format the sockets it is sent to need: json or binary,
+     * plain or compressed.
+     */
+    private class Broadcast {
+        private final Object message;
+        private final long seq;
+        private String json;
+        private byte[] binary;
+        private SharedFrame plain;
+        private SharedFrame compressed;
+        private SharedFrame plainBinary;
+        private SharedFrame compressedBinary;
+        private boolean compressionTried;
+        private boolean binaryCompressionTried;
+
+        Broadcast(Object message) {
+            this(message, -1);
+        }
+
+        Broadcast(Object message, long seq) {
+            this.message = message;
+            this.seq = seq;
+        }
+
+        /**
+         * @param connection the socket to send to
+         * @param queued     whether to queue the frame behind the others rather than replace the pending snapshot
+         */
+        void sendTo(WebSocketConnection connection, boolean queued) {
+            SharedFrame frame = frameFor(connection);
+            if (!(queued ? connection.write(frame) : connection.writeSnapshot(frame))) {
+                System.out.println("Can't connect to this player. They may have left the match.");
+            }
+        }
+
+        /**
+         * @param connection the socket to send to
+         * @return the frame in the format of the socket
+         */
+        SharedFrame frameFor(WebSocketConnection connection) {
+            boolean deflate = connection.getDeflate() != null;
+            if (connection.isBinary()) {
+                SharedFrame frame = deflate ? compressedBinaryFrame() : null;
+                return frame == null ? plainBinaryFrame() : frame;
+            }
+            SharedFrame frame = deflate ? compressedFrame() : null;
+            return frame == null ? plainFrame() : frame;
+        }
+
+        private String json() {
+            if (json == null) {
+                json = gson.toJson(message);
+                metrics.outputEncoded(false, WebSocketFrameCodec.utf8Length(json));
+            }
+            return json;
+        }
+
+        private byte[] binary() {
+            if (binary == null) {
+                binary = message instanceof MatchOutput
+                        ? BinaryMatchProtocol.encode((MatchOutput) message, playerNames)
+                        : BinaryMatchProtocol.encode((MatchOutputDelta) message, playerNames);
+                metrics.outputEncoded(true, binary.length);
+            }
+            return binary;
+        }
+
+        private SharedFrame plainFrame() {
+            if (plain == null) {
+                plain = SharedFrame.text(writePool, json());
+            }
+            return plain;
+        }
+
+        private SharedFrame compressedFrame() {
+            if (!compressionTried) {
+                compressionTried = true;
+                ByteBuffer encoded = compressor.compressText(writePool, json());
+                compressed = encoded == null ? null : SharedFrame.of(writePool, encoded);
+            }
+            return compressed;
+        }
+
+        private SharedFrame plainBinaryFrame() {
+            if (plainBinary == null) {
+                plainBinary = binaryFrame(binary());
+            }
+            return plainBinary;
+        }
+
+        private SharedFrame compressedBinaryFrame() {
+            if (!binaryCompressionTried) {
+                binaryCompressionTried = true;
+                ByteBuffer encoded = compressor.compressBinary(writePool, binary());
+                compressedBinary = encoded == null ? null : SharedFrame.of(writePool, encoded);
+            }
+            return compressedBinary;
+        }
+
+        void release() {
+            for (SharedFrame frame : Arrays.asList(plain, compressed, plainBinary, compressedBinary)) {
+                if (frame != null) {
+                    frame.release();
+                }
+            }
         }
     }
 
-    // Read a websocket text message
-    // Sending a websocket text message
-    // Formatting the byte array so that it follows the standard for websocket communication
-    static void sendWSMessage(OutputStream output, String message) throws IOException {
-        byte[] firstTwo = new byte[2];
-        firstTwo[0] |= (1 << 7);  // FIN, telling the client that this is a whole message
-        firstTwo[0] |= 1; // Op code, 0x1, telling that this is a text
-        int lenCode;    // this is the length of the message if length < 126
-        byte[] uint16Len = new byte[2];   // A backup for the length in the case it exceeds 125
+    private static MatchOutputDelta snapshotOf(MatchOutput output, long seq) {
+        MatchOutputDelta snapshot = new MatchOutputDelta();
+        snapshot.seq = seq;
+        snapshot.snapshot = true;
+        snapshot.status = output.status;
+        snapshot.textContent = output.textContent;
+        snapshot.numPlayers = output.numPlayers;
+        snapshot.turnTimeLeftMillis = output.turnTimeLeftMillis;
+        snapshot.playerStats = output.playerStats;
+        return snapshot;
+    }
 
-        if (message.length() < 126) {
-            lenCode = message.length();
-        } else {
-            lenCode = 126;
-            uint16Len[1] = (byte) (message.length() & 0xFF);
-            uint16Len[0] = (byte) ((message.length() >>> 8) & 0xFF);
-        } // It will never happen that message.len > 65536
-        firstTwo[1] |= (byte) lenCode;  // writing the lenCode to the last 7 bits of the second byte.
-
-        byte[] result;
-        if (lenCode < 126) {
-            result = new byte[2 + message.length()];
-            System.arraycopy(firstTwo, 0, result, 0, 2);
-            System.arraycopy(message.getBytes(StandardCharsets.UTF_8), 0, result, 2, message.length());
-        } else {
-            result = new byte[4 + message.length()];
-            System.arraycopy(firstTwo, 0, result, 0, 2);
-            System.arraycopy(uint16Len, 0, result, 2, 2);
-            System.arraycopy(message.getBytes(StandardCharsets.UTF_8), 0, result, 4, message.length());
+    private static MatchOutputDelta deltaOf(MatchOutput previous, MatchOutput current, long seq) {
+        MatchOutputDelta delta = new MatchOutputDelta();
+        delta.seq = seq;
+        if (previous.status != current.status)
+            delta.status = current.status;
+        if (!Objects.equals(previous.textContent, current.textContent))
+            delta.textContent = current.textContent;
+        if (previous.numPlayers != current.numPlayers)
+            delta.numPlayers = current.numPlayers;
+        if (previous.turnTimeLeftMillis != current.turnTimeLeftMillis)
+            delta.turnTimeLeftMillis = current.turnTimeLeftMillis;
+        for (Map.Entry<String, String> stat : current.playerStats.entrySet()) {
+            if (!stat.getValue().equals(previous.playerStats.get(stat.getKey()))) {
+                if (delta.playerStats == null)
+                    delta.playerStats = new HashMap<>();
+                delta.playerStats.put(stat.getKey(), stat.getValue());
+            }
+        }
+        for (String player : previous.playerStats.keySet()) {
+            if (!current.playerStats.containsKey(player)) {
+                if (delta.removedPlayers == null)
+                    delta.removedPlayers = new ArrayList<>();
+                delta.removedPlayers.add(player);
+            }
         }
-        output.write(result);
-        output.flush();
+        return delta;
     }
 }
@@ -0,0 +1,54 @@
+package system.controllers;
+
+import com.sun.net.httpserver.HttpExchange;
+import system.use_cases.managers.MatchManager;
+
+import java.io.IOException;
+
+/**
+ * MetricsRequestHandler Class
+ */
+public class MetricsRequestHandler extends RequestHandler {
+
+    private final WebSocketServer webSocketServer;
+    private final MatchManager matchManager;
+
+    /**
+     * Constructor for MetricsRequestHandler
+     * @param webSocketServer the server of the match sockets
+     * @param matchManager the match manager, whose match threads are reported
+     */
+    public MetricsRequestHandler(WebSocketServer webSocketServer, MatchManager matchManager) {
+        this.webSocketServer = webSocketServer;
+        this.matchManager = matchManager;
+    }
+
+    /**
+     * handle GET requests for the server counters
+     * @param exchange the exchange that contains header and appropriate content used for handling
+     * @throws IOException issue detected regarding input-output
+     */
+    @Override
+    protected void handleGetRequest(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length == 3 && path[2].equals("sockets")) {
+            sendJsonResponse(exchange, 200, webSocketServer.getMetrics().snapshot());
+        } else if (path.length == 3 && path[2].equals("matches")) {
+            sendJsonResponse(exchange, 200, matchManager.getMatchThreadMetrics());
+        } else if (path.length == 3 && path[2].equals("lifecycle")) {
+            sendJsonResponse(exchange, 200, matchManager.getLifecycleMetrics());
+        } else {
+            sendResponse(exchange, 404, "Unidentified Request.");
+        }
+    }
+
+    /**
+     * handle POST requests, none are supported
+     * @param exchange the exchange that contains header and appropriate content used for handling
+     * @throws IOException issue detected regarding input-output
+     */
+    @Override
+    protected void handlePostRequest(HttpExchange exchange) throws IOException {
+        sendResponse(exchange, 404, "Unidentified Request.");
+    }
+}
@@ -0,0 +1,368 @@
+package system.controllers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Abstract NioConnection Class
+ * <p>
+ * A non-blocking connection serviced by a {@link NioEventLoop}. Writes may be requested from any thread: the buffers
+ * are queued and the loop drains them when the channel is writable.
+ * <p>
+ * The queue is bounded. Snapshots, which supersede each other, don't take a place in it: only the latest one waits to
+ * be sent. A peer that lets more than the bounded number of frames pile up, or that doesn't accept any data for too
+ * long, is considered too slow and gets disconnected.
+ */
+abstract class NioConnection {
+
+    /**
+     * the underlying channel
+     */
+    protected final SocketChannel channel;
+    private final Queue<Outbound> outbound;
+    private final AtomicReference<Outbound> latestSnapshot;
+    private final AtomicInteger queued;
+    private final AtomicBoolean flushScheduled;
+    private final AtomicBoolean closed;
+    private final int maxQueuedFrames;
+    private final long maxStallMillis;
+    private final WebSocketMetrics metrics;
+    private Outbound current;
+    private volatile long stalledSince;
+    private volatile boolean finalQueued;
+    private volatile boolean closeRequested;
+    private NioEventLoop loop;
+    private SelectionKey key;
+
+    private static class Outbound {
+        final ByteBuffer data;
+        final BufferPool owner;
+        final SharedFrame shared;
+
+        Outbound(ByteBuffer data, BufferPool owner, SharedFrame shared) {
+            this.data = data;
+            this.owner = owner;
+            this.shared = shared;
+        }
+
+        void release() {
+            if (owner != null) {
+                owner.release(data);
+            }
+            if (shared != null) {
+                shared.release();
+            }
+        }
+    }
+
+    /**
+     * Constructor of NioConnection
+     *
+     * @param channel         the accepted channel
+     * @param maxQueuedFrames the number of frames that may wait to be written before the peer is disconnected
+     * @param maxStallMillis  how long the peer may refuse data before it is disconnected
+     * @param metrics         the counters this connection reports to
+     */
+    NioConnection(SocketChannel channel, int maxQueuedFrames, long maxStallMillis, WebSocketMetrics metrics) {
+        this.channel = channel;
+        this.outbound = new ConcurrentLinkedQueue<>();
+        this.latestSnapshot = new AtomicReference<>();
+        this.queued = new AtomicInteger();
+        this.flushScheduled = new AtomicBoolean(false);
+        this.closed = new AtomicBoolean(false);
+        this.maxQueuedFrames = maxQueuedFrames;
+        this.maxStallMillis = maxStallMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Called by the event loop once the channel is registered.
+     *
+     * @param loop the loop that owns this connection
+     * @param key  the selection key of the channel
+     */
+    void attach(NioEventLoop loop, SelectionKey key) {
+        this.loop = loop;
+        this.key = key;
+    }
+
+    /**
+     * @return the loop that owns this connection
+     */
+    NioEventLoop getLoop() {
+        return loop;
+    }
+
+    /**
+     * Stops or resumes reading from the channel. Must be called on the loop of the connection.
+     *
+     * @param enabled whether the loop reads the channel
+     */
+    void setReadInterest(boolean enabled) {
+        if (key != null && key.isValid()) {
+            key.interestOps(enabled ? key.interestOps() | SelectionKey.OP_READ
+                    : key.interestOps() & ~SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Called by the event loop when the channel has data to read.
+     *
+     * @throws IOException if the channel can't be read or the peer sent invalid data
+     */
+    abstract void handleRead() throws IOException;
+
+    /**
+     * Called once when the connection gets closed, from whichever thread closed it.
+     */
+    protected abstract void onClosed();
+
+    /**
+     * Queues a buffer to be written to the channel. Safe to call from any thread.
+     *
+     * @param buffer the bytes to write, positioned at the start of the data
+     * @return false if the connection is already closed
+     */
+    boolean write(ByteBuffer buffer) {
+        return write(buffer, null);
+    }
+
+    /**
+     * Queues a pooled buffer to be written to the channel, and gives it back to its pool once written. Safe to call
+     * from any thread.
+     *
+     * @param buffer the bytes to write, positioned at the start of the data
+     * @param owner  the pool the buffer is released to, or null if it isn't pooled
+     * @return false if the connection is already closed
+     */
+    boolean write(ByteBuffer buffer, BufferPool owner) {
+        if (closed.get()) {
+            if (owner != null) {
+                owner.release(buffer);
+            }
+            return false;
+        }
+        return enqueue(new Outbound(buffer, owner, null));
+    }
+
+    /**
+     * Queues a frame shared with other connections, behind every frame already queued. The frame is retained until it
+     * has been written. Safe to call from any thread.
+     *
+     * @param frame the frame to write
+     * @return false if the connection is already closed
+     */
+    boolean write(SharedFrame frame) {
+        if (closed.get() || !frame.retain()) {
+            return false;
+        }
+        return enqueue(new Outbound(frame.view(), null, frame));
+    }
+
+    /**
+     * Queues the last pooled buffer of the connection. Nothing queued after it is sent, which is how the closing
+     * frame of a protocol stays last. Safe to call from any thread.
+     *
+     * @param buffer the bytes to write, positioned at the start of the data
+     * @param owner  the pool the buffer is released to, or null if it isn't pooled
+     * @return false if the connection is already closed
+     */
+    boolean writeFinal(ByteBuffer buffer, BufferPool owner) {
+        finalQueued = true;
+        return write(buffer, owner);
+    }
+
+    /**
+     * Queues a snapshot shared with other connections, replacing the previous snapshot if it hasn't been sent yet.
+     * The frame is retained until it has been written or replaced. Safe to call from any thread.
+     *
+     * @param frame the frame to write
+     * @return false if the connection is already closed
+     */
+    boolean writeSnapshot(SharedFrame frame) {
+        if (closed.get() || finalQueued || !frame.retain()) {
+            return false;
+        }
+        Outbound replaced = latestSnapshot.getAndSet(new Outbound(frame.view(), null, frame));
+        if (replaced == null) {
+            queued.incrementAndGet();
+            metrics.frameQueued();
+        } else {
+            replaced.release();
+            metrics.frameCoalesced();
+        }
+        if (closed.get()) {
+            // Same as in enqueue.
+            drainQueued();
+            return false;
+        }
+        if (isStalled()) {
+            evict();
+            return false;
+        }
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * @return whether a snapshot is still waiting to be written
+     */
+    boolean hasPendingSnapshot() {
+        return latestSnapshot.get() != null;
+    }
+
+    private boolean enqueue(Outbound entry) {
+        outbound.add(entry);
+        metrics.frameQueued();
+        int depth = queued.incrementAndGet();
+        if (closed.get()) {
+            // Closed meanwhile, the close may have drained the queue before the entry got into it.
+            drainQueued();
+            return false;
+        }
+        if (depth > maxQueuedFrames || isStalled()) {
+            evict();
+            return false;
+        }
+        scheduleFlush();
+        return true;
+    }
+
+    private void drainQueued() {
+        Outbound dropped = latestSnapshot.getAndSet(null);
+        if (dropped != null) {
+            releaseQueued(dropped);
+        }
+        while ((dropped = outbound.poll()) != null) {
+            releaseQueued(dropped);
+        }
+    }
+
+    private boolean isStalled() {
+        long since = stalledSince;
+        return since != 0 && System.currentTimeMillis() - since > maxStallMillis;
+    }
+
+    private void evict() {
+        if (!closed.get()) {
+            System.out.println("Disconnecting a peer that can't keep up with its match.");
+            metrics.connectionEvicted();
+            close();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (loop != null && loop.inEventLoop()) {
+            flushQuietly();
+        } else if (loop != null && flushScheduled.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Writes as much of the queued data as the channel accepts, waiting for write readiness for the rest.
+     *
+     * @throws IOException if the channel can't be written
+     */
+    void flush() throws IOException {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        while (current != null || (current = nextOutbound()) != null) {
+            channel.write(current.data);
+            if (current.data.hasRemaining()) {
+                if (stalledSince == 0) {
+                    stalledSince = System.currentTimeMillis();
+                }
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            stalledSince = 0;
+            releaseQueued(current);
+            current = null;
+        }
+        stalledSince = 0;
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (closeRequested) {
+            close();
+        }
+    }
+
+    private Outbound nextOutbound() {
+        // The snapshot is the most recent output, it goes after the queue but never after a final frame.
+        Outbound next = outbound.poll();
+        return next != null || finalQueued ? next : latestSnapshot.getAndSet(null);
+    }
+
+    private void releaseQueued(Outbound entry) {
+        queued.decrementAndGet();
+        metrics.frameDequeued();
+        entry.release();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Closes the connection once the queued data has been written.
+     */
+    void closeAfterFlush() {
+        closeRequested = true;
+        if (loop == null) {
+            close();
+        } else if (loop.inEventLoop()) {
+            flushQuietly();
+        } else {
+            loop.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * @return whether this connection has been closed
+     */
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Closes the connection immediately, dropping any queued data. When called from another thread, the connection
+     * is closed by its loop shortly after.
+     */
+    void close() {
+        if (loop != null && !loop.inEventLoop()) {
+            loop.execute(this::close);
+            return;
+        }
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        if (current != null) {
+            releaseQueued(current);
+            current = null;
+        }
+        drainQueued();
+        onClosed();
+    }
+}
@@ -0,0 +1,137 @@
+package system.controllers;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NioEventLoop Class
+ * <p>
+ * A single thread that owns a selector and services every connection registered to it. All reads, writes and state
+ * changes of a connection happen on its loop, other threads hand work over with {@link #execute(Runnable)}.
+ */
+class NioEventLoop extends Thread {
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private volatile boolean running;
+
+    /**
+     * Constructor of NioEventLoop
+     *
+     * @param name the name of the loop thread
+     * @throws IOException if the selector can't be opened
+     */
+    NioEventLoop(String name) throws IOException {
+        super(name);
+        setDaemon(true);
+        selector = Selector.open();
+        tasks = new ConcurrentLinkedQueue<>();
+        running = true;
+    }
+
+    /**
+     * Runs a task on this loop, after the current select wakes up.
+     *
+     * @param task the task to run
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * @return whether the calling thread is this loop
+     */
+    boolean inEventLoop() {
+        return Thread.currentThread() == this;
+    }
+
+    /**
+     * Hands a freshly accepted channel over to this loop.
+     *
+     * @param channel    the accepted channel
+     * @param connection the connection that handles the channel events
+     */
+    void register(SocketChannel channel, NioConnection connection) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(this, key);
+            } catch (IOException e) {
+                connection.close();
+            }
+        });
+    }
+
+    /**
+     * Stops the loop and closes every connection it owns.
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Run NioEventLoop
+     */
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                System.out.println("Selector failure on " + getName() + ".");
+                break;
+            }
+            runTasks();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                processKey(key);
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((NioConnection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void processKey(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                connection.handleRead();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException | CancelledKeyException e) {
+            connection.close();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            connection.close();
+        }
+    }
+}
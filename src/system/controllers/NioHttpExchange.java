@@ -0,0 +1,394 @@
+package system.controllers;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NioHttpExchange Class
+ * <p>
+ * An {@link HttpExchange} over a request read by a {@link WebSocketConnection}, so the existing {@link RequestHandler}s
+ * serve requests from the event loops unchanged. The response body is written straight into segments of the write pool.
+ * <p>
+ * A response announced with a length of 0 is streamed like the JDK HttpServer does: its head goes out right away and
+ * every segment is sent as a chunk as soon as it fills, so a large listing never sits whole in memory. Any other
+ * response is held until the handler returns and sent with a Content-Length taken from the bytes actually written.
+ */
+class NioHttpExchange extends HttpExchange {
+
+    private static final Map<Integer, String> REASONS = new HashMap<>();
+
+    static {
+        REASONS.put(200, "OK");
+        REASONS.put(201, "Created");
+        REASONS.put(204, "No Content");
+        REASONS.put(304, "Not Modified");
+        REASONS.put(400, "Bad Request");
+        REASONS.put(403, "Forbidden");
+        REASONS.put(404, "Not Found");
+        REASONS.put(411, "Length Required");
+        REASONS.put(413, "Payload Too Large");
+        REASONS.put(431, "Request Header Fields Too Large");
+        REASONS.put(500, "Internal Server Error");
+        REASONS.put(503, "Service Unavailable");
+    }
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+    /**
+     * the room left at the start of every segment for its chunk size line
+     */
+    private static final int CHUNK_HEADER_ROOM = 8;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private final HttpRequest request;
+    private final URI uri;
+    private final WebSocketConnection connection;
+    private final BufferPool pool;
+    private final boolean keepAlive;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders;
+    private final Map<String, Object> attributes;
+    private final List<ByteBuffer> segments;
+    private ByteBuffer segment;
+    private InputStream requestBody;
+    private OutputStream responseBody;
+    private int responseCode;
+    private boolean chunked;
+
+    /**
+     * Constructor of NioHttpExchange
+     *
+     * @param request    the request
+     * @param uri        the parsed request target
+     * @param connection the connection the request was read from
+     * @param pool       the pool the response is written into
+     * @param keepAlive  whether the connection stays open after the response
+     */
+    NioHttpExchange(HttpRequest request, URI uri, WebSocketConnection connection, BufferPool pool, boolean keepAlive) {
+        this.request = request;
+        this.uri = uri;
+        this.connection = connection;
+        this.pool = pool;
+        this.keepAlive = keepAlive;
+        this.requestHeaders = new Headers();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            requestHeaders.add(header.getKey(), header.getValue());
+        }
+        this.responseHeaders = new Headers();
+        this.attributes = new HashMap<>();
+        this.requestBody = new ByteArrayInputStream(request.getBody());
+        this.segments = new ArrayList<>();
+        this.responseBody = new ResponseBody();
+        this.responseCode = -1;
+    }
+
+    /**
+     * ResponseBody Class
+     * <p>
+     * The stream the handler writes the body to, filling one pooled segment after the other.
+     */
+    private class ResponseBody extends OutputStream {
+        @Override
+        public void write(int b) throws IOException {
+            nextSegmentIfFull();
+            segment.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                nextSegmentIfFull();
+                int n = Math.min(len, segment.remaining());
+                segment.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Does nothing, segments are sent when they fill or when the handler returns.
+         */
+        @Override
+        public void flush() {
+        }
+
+        /**
+         * Does nothing, the response is completed once the handler returns.
+         */
+        @Override
+        public void close() {
+        }
+    }
+
+    private void nextSegmentIfFull() throws IOException {
+        if (segment != null && segment.hasRemaining()) {
+            return;
+        }
+        if (segment != null) {
+            ByteBuffer full = seal(segment);
+            segment = null;
+            if (!chunked) {
+                segments.add(full);
+            } else if (!connection.write(full, pool)) {
+                throw new IOException("Connection closed");
+            }
+        }
+        segment = pool.acquire(SEGMENT_SIZE);
+        segment.position(CHUNK_HEADER_ROOM).limit(SEGMENT_SIZE - CRLF.length);
+    }
+
+    /**
+     * Turns a filled segment into read mode, framed as a chunk if the response is chunked.
+     */
+    private ByteBuffer seal(ByteBuffer filled) {
+        int end = filled.position();
+        if (!chunked) {
+            filled.limit(end).position(CHUNK_HEADER_ROOM);
+            return filled;
+        }
+        byte[] size = (Integer.toHexString(end - CHUNK_HEADER_ROOM) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        int start = CHUNK_HEADER_ROOM - size.length;
+        filled.limit(end + CRLF.length);
+        filled.position(end);
+        filled.put(CRLF);
+        filled.position(start);
+        filled.put(size);
+        filled.position(start);
+        return filled;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return request.getMethod();
+    }
+
+    /**
+     * @return null, contexts are routed by {@link HttpRouter} and not exposed to the handlers
+     */
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    /**
+     * Does nothing, the response is sent once the handler returns.
+     */
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Records the status of the response. A length of 0 sends the head right away and streams the body in chunks,
+     * unless the client only speaks HTTP/1.0. Any other length is ignored, the body is counted as it is written.
+     *
+     * @param responseCode the response status
+     * @param length       0 to stream the body, -1 for no body, otherwise the announced length of the body
+     * @throws IOException if the status has already been set
+     */
+    @Override
+    public void sendResponseHeaders(int responseCode, long length) throws IOException {
+        if (this.responseCode != -1) {
+            throw new IOException("Response headers already sent");
+        }
+        this.responseCode = responseCode;
+        if (length == 0 && responseCode != 204 && !request.getVersion().equals("HTTP/1.0")) {
+            chunked = true;
+            StringBuilder head = responseHead();
+            head.append("Transfer-Encoding: chunked\r\n");
+            if (!connection.write(encode(pool, head, -1, keepAlive), pool)) {
+                throw new IOException("Connection closed");
+            }
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) connection.channel.socket().getRemoteSocketAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) connection.channel.socket().getLocalSocketAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream requestBody, OutputStream responseBody) {
+        if (requestBody != null) {
+            this.requestBody = requestBody;
+        }
+        if (responseBody != null) {
+            this.responseBody = responseBody;
+        }
+    }
+
+    /**
+     * @return null, requests aren't authenticated at this level
+     */
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    /**
+     * Queues what is left of the response once the handler returned: the last chunk of a streamed response, the whole
+     * response otherwise, or a 500 response if the handler didn't send any.
+     *
+     * @param handled false if the handler failed, which cuts a streamed response short
+     * @return false if the connection must be closed because a streamed response was cut short
+     */
+    boolean finish(boolean handled) {
+        if (responseCode == -1) {
+            releaseSegments();
+            connection.write(errorResponse(pool, 500, keepAlive), pool);
+            return true;
+        }
+        if (chunked && !handled) {
+            releaseSegments();
+            return false;
+        }
+        if (chunked) {
+            if (segment != null && segment.position() > CHUNK_HEADER_ROOM) {
+                connection.write(seal(segment), pool);
+                segment = null;
+            }
+            releaseSegments();
+            ByteBuffer last = pool.acquire(LAST_CHUNK.length);
+            last.put(LAST_CHUNK).flip();
+            connection.write(last, pool);
+            return true;
+        }
+        if (responseCode == 204 || responseCode == 304) {
+            releaseSegments();
+            connection.write(encode(pool, responseHead(), -1, keepAlive), pool);
+            return true;
+        }
+        if (segment != null) {
+            segments.add(seal(segment));
+            segment = null;
+        }
+        int length = 0;
+        for (ByteBuffer full : segments) {
+            length += full.remaining();
+        }
+        connection.write(encode(pool, responseHead(), length, keepAlive), pool);
+        for (ByteBuffer full : segments) {
+            connection.write(full, pool);
+        }
+        segments.clear();
+        return true;
+    }
+
+    private void releaseSegments() {
+        if (segment != null) {
+            pool.release(segment);
+            segment = null;
+        }
+        for (ByteBuffer full : segments) {
+            pool.release(full);
+        }
+        segments.clear();
+    }
+
+    private StringBuilder responseHead() {
+        StringBuilder head = statusLine(responseCode);
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Encodes a response without body for a request that didn't reach a handler.
+     *
+     * @param pool      the pool the response buffer is taken from
+     * @param status    the response status
+     * @param keepAlive whether the connection stays open after the response
+     * @return the response, in read mode
+     */
+    static ByteBuffer errorResponse(BufferPool pool, int status, boolean keepAlive) {
+        return encode(pool, statusLine(status), 0, keepAlive);
+    }
+
+    private static StringBuilder statusLine(int status) {
+        return new StringBuilder("HTTP/1.1 ").append(status).append(' ')
+                .append(REASONS.getOrDefault(status, "Unknown")).append("\r\n");
+    }
+
+    /**
+     * @param contentLength the Content-Length to announce, or -1 for none
+     * @return the response head, in read mode
+     */
+    private static ByteBuffer encode(BufferPool pool, StringBuilder head, int contentLength, boolean keepAlive) {
+        if (contentLength >= 0) {
+            head.append("Content-Length: ").append(contentLength).append("\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer response = pool.acquire(headBytes.length);
+        response.put(headBytes);
+        response.flip();
+        return response;
+    }
+}
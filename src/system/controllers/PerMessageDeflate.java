@@ -0,0 +1,246 @@
+package system.controllers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * PerMessageDeflate Class
+ * <p>
+ * The permessage-deflate extension of RFC 7692, as negotiated by one connection. The server always compresses without
+ * context takeover, so a message compressed once can be sent as is to every connection that negotiated the extension.
+ * Messages of the client are inflated with a context kept for the whole connection, unless the client offered not to
+ * take it over.
+ */
+class PerMessageDeflate {
+
+    /**
+     * the extension token
+     */
+    static final String NAME = "permessage-deflate";
+
+    private static final byte[] TAIL = {0, 0, (byte) 0xFF, (byte) 0xFF};
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean clientNoContextTakeover;
+    private final Compressor compressor;
+    private final WebSocketMetrics metrics;
+    private Inflater inflater;
+    private byte[] inflated;
+
+    /**
+     * Compressor Class
+     * <p>
+     * A reusable deflate context that compresses whole messages into ready-to-send frames.
+     */
+    static class Compressor {
+
+        private final int threshold;
+        private final WebSocketMetrics metrics;
+        private Deflater deflater;
+        private byte[] output;
+
+        /**
+         * @param threshold the size under which a message is sent uncompressed
+         * @param metrics   the counters compression is reported to
+         */
+        Compressor(int threshold, WebSocketMetrics metrics) {
+            this.threshold = threshold;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Compresses a text message into a frame.
+         *
+         * @param pool    the pool the frame buffer is taken from
+         * @param message the text to send
+         * @return the frame in read mode, or null if the message should be sent uncompressed
+         */
+        ByteBuffer compressText(BufferPool pool, String message) {
+            if (message.length() < threshold) {
+                return null;
+            }
+            return compress(pool, WebSocketFrameCodec.OPCODE_TEXT, message.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Compresses a binary message into a frame.
+         *
+         * @param pool    the pool the frame buffer is taken from
+         * @param message the bytes to send
+         * @return the frame in read mode, or null if the message should be sent uncompressed
+         */
+        ByteBuffer compressBinary(BufferPool pool, byte[] message) {
+            if (message.length < threshold) {
+                return null;
+            }
+            return compress(pool, WebSocketFrameCodec.OPCODE_BINARY, message);
+        }
+
+        private synchronized ByteBuffer compress(BufferPool pool, int opcode, byte[] input) {
+            long start = cpuTime();
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                output = new byte[Math.max(input.length, 1024)];
+            }
+            deflater.reset();
+            deflater.setInput(input);
+            int length = 0;
+            while (true) {
+                length += deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
+                if (length < output.length) {
+                    break;
+                }
+                byte[] larger = new byte[output.length * 2];
+                System.arraycopy(output, 0, larger, 0, length);
+                output = larger;
+            }
+            // A sync flush ends with an empty stored block, which the extension leaves out.
+            length -= TAIL.length;
+            if (length >= input.length) {
+                metrics.messageCompressed(input.length, input.length, cpuTime() - start);
+                return null;
+            }
+            metrics.messageCompressed(input.length, length, cpuTime() - start);
+            ByteBuffer frame = pool.acquire(WebSocketFrameCodec.MAX_HEADER_LENGTH + length);
+            WebSocketFrameCodec.putHeader(frame, opcode | WebSocketFrameCodec.RSV1, length);
+            frame.put(output, 0, length);
+            frame.flip();
+            return frame;
+        }
+
+        /**
+         * Frees the native deflate context.
+         */
+        synchronized void release() {
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+        }
+    }
+
+    private PerMessageDeflate(boolean clientNoContextTakeover, int threshold, WebSocketMetrics metrics) {
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.compressor = new Compressor(threshold, metrics);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Picks the first offer of the extension that the server can accept.
+     *
+     * @param offers    the Sec-WebSocket-Extensions header of the client, may be null
+     * @param threshold the size under which a message is sent uncompressed
+     * @param metrics   the counters compression is reported to
+     * @return the accepted extension, or null if none of the offers can be accepted
+     */
+    static PerMessageDeflate negotiate(String offers, int threshold, WebSocketMetrics metrics) {
+        if (offers == null) {
+            return null;
+        }
+        for (String offer : offers.split(",")) {
+            String[] parameters = offer.split(";");
+            if (!parameters[0].trim().equalsIgnoreCase(NAME)) {
+                continue;
+            }
+            boolean acceptable = true;
+            boolean clientNoContextTakeover = false;
+            for (int i = 1; i < parameters.length && acceptable; i++) {
+                String[] parameter = parameters[i].trim().split("=", 2);
+                switch (parameter[0].trim().toLowerCase()) {
+                    case "server_no_context_takeover":
+                    case "client_max_window_bits":
+                        break;
+                    case "client_no_context_takeover":
+                        clientNoContextTakeover = true;
+                        break;
+                    case "server_max_window_bits":
+                        // The deflater always uses a 32K window, a smaller one can't be honored.
+                        acceptable = parameter.length == 2 && parameter[1].replace("\"", "").trim().equals("15");
+                        break;
+                    default:
+                        acceptable = false;
+                }
+            }
+            if (acceptable) {
+                return new PerMessageDeflate(clientNoContextTakeover, threshold, metrics);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the Sec-WebSocket-Extensions value of the handshake response
+     */
+    String responseHeader() {
+        return NAME + "; server_no_context_takeover" + (clientNoContextTakeover ? "; client_no_context_takeover" : "");
+    }
+
+    /**
+     * @return the deflate context of this connection, for the messages sent to it alone
+     */
+    Compressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * Inflates a compressed message of the client.
+     *
+     * @param payload        the compressed message, a heap buffer
+     * @param maxMessageSize the largest inflated size accepted
+     * @return the inflated message, a heap buffer valid until the next call, or null if it is too big
+     * @throws DataFormatException if the payload is not valid deflate data
+     */
+    synchronized ByteBuffer inflate(ByteBuffer payload, int maxMessageSize) throws DataFormatException {
+        long start = cpuTime();
+        if (inflater == null) {
+            inflater = new Inflater(true);
+            inflated = new byte[1024];
+        }
+        inflater.setInput(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        int length = inflateInput(0, maxMessageSize);
+        if (length >= 0) {
+            inflater.setInput(TAIL);
+            length = inflateInput(length, maxMessageSize);
+        }
+        if (clientNoContextTakeover || inflater.finished()) {
+            inflater.reset();
+        }
+        metrics.messageInflated(cpuTime() - start);
+        return length < 0 ? null : ByteBuffer.wrap(inflated, 0, length);
+    }
+
+    private int inflateInput(int length, int maxMessageSize) throws DataFormatException {
+        while (!inflater.needsInput() && !inflater.finished()) {
+            if (length == inflated.length) {
+                if (length >= maxMessageSize) {
+                    return -1;
+                }
+                byte[] larger = new byte[Math.min(inflated.length * 2, maxMessageSize)];
+                System.arraycopy(inflated, 0, larger, 0, length);
+                inflated = larger;
+            }
+            length += inflater.inflate(inflated, length, inflated.length - length);
+        }
+        return length;
+    }
+
+    /**
+     * Frees the native contexts, once the connection is closed.
+     */
+    synchronized void release() {
+        compressor.release();
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+}
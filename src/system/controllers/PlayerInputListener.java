@@ -3,126 +3,118 @@ package system.controllers;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import shared.DTOs.sockets.MatchInput;
-import shared.constants.IDType;
 import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
 import shared.exceptions.use_case_exceptions.InvalidInputException;
 import system.use_cases.managers.MatchManager;
+import system.utilities.json.SharedGson;
 
-import java.io.*;
-import java.net.Socket;
+import java.nio.ByteBuffer;
 
 /**
  * PlayerInputListener Class
+ * <p>
+ * Plays the inputs of one player, sent as json text or, on a socket that negotiated it, in the
+ * {@link BinaryMatchProtocol}. Errors are always reported as text.
+ * <p>
+ * Inputs are decoded on the event loop of the socket and played on the thread of the match, so a slow match never
+ * holds up the other sockets of the loop.
  */
-public class PlayerInputListener extends Thread {
+public class PlayerInputListener implements WebSocketListener {
 
-    InputStream inStream;
-    OutputStream outStream;
-    MatchManager manager;
-    String matchID;
-    String playerID;
-    Gson gson;
+    private final WebSocketServer server;
+    private final String sessionToken;
+    private final MatchOutputDispatcher outputDispatcher;
+    private final MatchManager manager;
+    private final String matchID;
+    private final String playerID;
+    private final Gson gson;
 
     /**
      * Constructor of PlayerInputListener
      *
-     * @param socket   the web socket used for communication
-     * @param manager  the match manager that contains all matches and can manipulate them
-     * @param matchID  the current match id
-     * @param playerID the current player id
+     * @param server           the server the player's socket belongs to
+     * @param sessionToken     the token of the player's session
+     * @param outputDispatcher the dispatcher that sends the match output to this player
+     * @param manager          the match manager that contains all matches and can manipulate them
+     * @param matchID          the current match id
+     * @param playerID         the current player id
      */
-    public PlayerInputListener(Socket socket, MatchManager manager, String matchID, String playerID) {
-        try {
-            inStream = socket.getInputStream();
-            outStream = socket.getOutputStream();
-        } catch (IOException e) {
-            throw new RuntimeException("I/O problem when trying to get input stream from socket.");
-        }
+    public PlayerInputListener(WebSocketServer server, String sessionToken, MatchOutputDispatcher outputDispatcher,
+                               MatchManager manager, String matchID, String playerID) {
+        this.server = server;
+        this.sessionToken = sessionToken;
+        this.outputDispatcher = outputDispatcher;
         this.manager = manager;
         this.matchID = matchID;
         this.playerID = playerID;
-        this.gson = new Gson();
+        this.gson = SharedGson.get();
     }
 
     /**
-     * Run PlayerInputListener
-     * <p>
-     * Monitors the socket input stream and handles player inputs depending on the match status.
+     * Handles a player input depending on the match status.
+     *
+     * @param connection the player's connection
+     * @param message    the input, a json encoded MatchInput
      */
-    public void run() {
-        while (true) {
-            try {
-                if (manager.getMatchStatus(matchID) != MatchStatus.FINISHED) {
-                    String userInput = readWSMessage(inStream);
-                    MatchInput inData;
-                    try {
-                        inData = gson.fromJson(userInput, MatchInput.class);
-                    } catch (JsonSyntaxException e) {
-                        try {
-                            manager.removePlayer(playerID, matchID);
-                        } catch (InvalidIDException e2) {
-                            System.out.println("Match no longer exist or player already removed.");
-                        }
-                        return; // Terminate this thread.
-                    }
-                    switch (inData.sysCommand) {
-                        case "start":
-                            if (manager.getHostId(matchID).equals(playerID))
-                                manager.startMatch(matchID);
-                            break;
-                    }
-                    if (!inData.gameMove.equals("")) {
-                        manager.playGameMove(playerID, matchID, inData.gameMove);
-                    }
-                }
-            } catch (InvalidIDException e) {
-                throw new RuntimeException("Match ID or Player ID is invalid. This should never happen.");
-
-            } catch (InvalidInputException e) {
-                try {
-                    MatchOutputDispatcher.sendWSMessage(outStream, "Invalid input.");
-                } catch (IOException ioException) {
-                    try {
-                        manager.removePlayer(playerID, matchID);
-                    } catch (InvalidIDException e3) {
-                        System.out.println("Match no longer exist or player already removed.");
-                    }
-                    return; // Terminate this thread.
-                }
-            } catch (IOException e) {
-                try {
-                    manager.removePlayer(playerID, matchID);
-                } catch (InvalidIDException e4) {
-                    System.out.println("Match no longer exist or player already removed.");
-                }
-            }
+    @Override
+    public void onMessage(WebSocketConnection connection, String message) {
+        MatchInput inData;
+        try {
+            inData = gson.fromJson(message, MatchInput.class);
+        } catch (JsonSyntaxException e) {
+            connection.close();
+            return;
         }
+        manager.runInOrder(matchID, () -> play(connection, inData));
     }
 
-    static String readWSMessage(InputStream input) throws IOException {
-        input.read(); // Skip the first bit, FIN, which should always be 1.
-        int byteValue = input.read();
-        int messageLen;
-        if (byteValue - 128 <= 125) {
-            messageLen = byteValue - 128;
-        } else if (byteValue - 128 == 126) {
-            byte[] buffer = new byte[2];
-            messageLen = input.read(buffer, 0, 2);
-        } else {
-            byte[] buffer = new byte[8];
-            messageLen = input.read(buffer, 0, 8);
-        }
+    /**
+     * Handles a player input in the binary protocol.
+     *
+     * @param connection the player's connection
+     * @param message    the input, a {@link BinaryMatchProtocol#INPUT} message
+     */
+    @Override
+    public void onBinaryMessage(WebSocketConnection connection, ByteBuffer message) {
+        MatchInput inData = BinaryMatchProtocol.decodeInput(message);
+        manager.runInOrder(matchID, () -> play(connection, inData));
+    }
 
-        byte[] mask = new byte[4];
-        input.read(mask, 0, 4);
-        byte[] encoded = new byte[messageLen];
-        byte[] decoded = new byte[messageLen];
-        input.read(encoded, 0, messageLen);
-        for (int i = 0; i < messageLen; i++) {
-            decoded[i] = (byte) (encoded[i] ^ mask[i % 4]);
+    private void play(WebSocketConnection connection, MatchInput inData) {
+        try {
+            if (manager.getMatchStatus(matchID) == MatchStatus.FINISHED)
+                return;
+            if (inData == null || inData.sysCommand == null || inData.gameMove == null) {
+                connection.close();
+                return;
+            }
+            switch (inData.sysCommand) {
+                case "start":
+                    if (manager.getHostId(matchID).equals(playerID))
+                        manager.startMatch(matchID);
+                    break;
+                case "resync":
+                    outputDispatcher.resync(connection);
+                    break;
+            }
+            if (!inData.gameMove.equals("")) {
+                manager.playGameMove(playerID, matchID, inData.gameMove);
+            }
+        } catch (InvalidIDException e) {
+            connection.close();
+        } catch (InvalidInputException e) {
+            connection.sendText("Invalid input.");
         }
-        return new String(decoded);
     }
 
+    /**
+     * Releases the player's seat once its socket is gone, right away or after the grace period for resuming.
+     *
+     * @param connection the closed connection
+     */
+    @Override
+    public void onClose(WebSocketConnection connection) {
+        server.detach(connection, sessionToken);
+    }
 }
@@ -4,12 +4,17 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import shared.constants.UserRole;
+import system.utilities.json.SharedGson;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Abstract RequestHandler Class
@@ -25,7 +30,7 @@ public abstract class RequestHandler implements HttpHandler {
      * Constructor of RequestHandler
      */
     public RequestHandler() {
-        gson = new Gson();
+        gson = SharedGson.get();
     }
 
     /**
@@ -72,9 +77,10 @@ public abstract class RequestHandler implements HttpHandler {
     protected static void sendResponse(HttpExchange exchange, int responseCode, String body) throws IOException {
         exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
         if (responseCode != 204) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
             OutputStream outputStream = exchange.getResponseBody();
-            exchange.sendResponseHeaders(responseCode, body.length());
-            outputStream.write(body.getBytes());
+            exchange.sendResponseHeaders(responseCode, bytes.length == 0 ? -1 : bytes.length);
+            outputStream.write(bytes);
             outputStream.flush();
             outputStream.close();
         } else {
@@ -83,23 +89,75 @@ public abstract class RequestHandler implements HttpHandler {
     }
 
     /**
-     *
+     * send a DTO as json, serialized straight into the response stream, which is sent in chunks
      * @param exchange the exchange that contains appropriate content used for handling
-     * @return the request's body content
+     * @param responseCode the exchanges response code represent the kind of state is in
+     * @param body the DTO to send
      * @throws IOException issue detected with input-output
      */
-    protected static String getRequestBody(HttpExchange exchange) throws IOException {
-        InputStreamReader isr =  new InputStreamReader(exchange.getRequestBody(),"utf-8");
-        BufferedReader br = new BufferedReader(isr);
+    protected void sendJsonResponse(HttpExchange exchange, int responseCode, Object body) throws IOException {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(responseCode, 0);
+        try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            gson.toJson(body, writer);
+        }
+    }
+
+    /**
+     * send a listing as json with the ETag of the catalog versions it is built from. A request that already has this
+     * ETag gets a 304 and a listing that was already built for this ETag is sent from the cache, without loading it
+     * @param exchange the exchange that contains appropriate content used for handling
+     * @param cache the cache of the listings of the handler
+     * @param etag the ETag of the current versions of the catalogs the listing is built from
+     * @param loader builds the DTO of the listing, only called if the listing isn't cached
+     * @param <E> the exception thrown by the loader
+     * @throws IOException issue detected with input-output
+     * @throws E if the loader fails, in which case nothing has been sent
+     */
+    protected <E extends Exception> void sendListingResponse(HttpExchange exchange, ListingCache cache, String etag,
+                                                             ListingCache.Loader<E> loader) throws IOException, E {
+        if (ListingCache.isNotModified(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            setListingHeaders(exchange, etag);
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        String key = exchange.getRequestURI().toString();
+        byte[] body = cache.get(key, etag);
+        if (body == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+                gson.toJson(loader.load(), writer);
+            }
+            body = buffer.toByteArray();
+            cache.put(key, etag, body);
+        }
+        setListingHeaders(exchange, etag);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
 
-        int b;
-        StringBuilder buf = new StringBuilder();
-        while ((b = br.read()) != -1) {
-            buf.append((char) b);
+    private static void setListingHeaders(HttpExchange exchange, String etag) {
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    }
+
+    /**
+     * read the request body as a DTO, deserialized straight from the request stream
+     * @param exchange the exchange that contains appropriate content used for handling
+     * @param type the class of the DTO
+     * @param <T> the type of the DTO
+     * @return the DTO, or null if the body is empty
+     * @throws IOException issue detected with input-output
+     */
+    protected <T> T readRequestBody(HttpExchange exchange, Class<T> type) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, type);
         }
-        br.close();
-        isr.close();
-        return buf.toString();
     }
 
     /**
@@ -0,0 +1,142 @@
+package system.controllers;
+
+import com.google.gson.JsonParseException;
+import system.utilities.json.SharedGson;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * ServerConfig Class
+ * <p>
+ * Tunable values of the network layer. Every field has a default so the configuration file only needs to list the
+ * values that differ from it.
+ */
+public class ServerConfig {
+
+    private static final String CONFIG_FILE = "src/system/configuration_files/server_config.json";
+
+    /**
+     * the port of the REST server, which also accepts match sockets
+     */
+    public int httpPort = 8000;
+    /**
+     * how the REST requests are run: "pool" for a fixed pool of httpPoolThreads threads, or "virtual" for a virtual
+     * thread per request, which needs Java 21 and falls back to the pool otherwise
+     */
+    public String httpExecutionMode = "pool";
+    /**
+     * the number of threads serving REST requests in the pool mode
+     */
+    public int httpPoolThreads = 10;
+    /**
+     * the number of incoming REST connections that may wait to be accepted
+     */
+    public int httpBacklog = 20;
+    /**
+     * how long an HTTP connection may stay idle between requests before it is closed
+     */
+    public int httpKeepAliveSeconds = 15;
+    /**
+     * the largest REST request body accepted
+     */
+    public int httpMaxBodySize = 1 << 20;
+    /**
+     * the number of threads the matches are spread over, each match being changed from a single one of them
+     */
+    public int matchThreads = Runtime.getRuntime().availableProcessors();
+    /**
+     * the number of user, game and template IDs reserved from their counter at once; the IDs left unused when the
+     * server stops are skipped
+     */
+    public int idBlockSize = 32;
+    /**
+     * the prefix of the IDs given out by this server, so that servers not sharing a database give out distinct IDs;
+     * empty for plain numbers
+     */
+    public String nodeId = "";
+    /**
+     * how long a match may wait for its host to start it before it is evicted, 0 to keep it forever
+     */
+    public int matchPreparingTtlSeconds = 1800;
+    /**
+     * how long an ongoing match may go without a move before it is evicted, 0 to keep it forever
+     */
+    public int matchIdleTtlSeconds = 1800;
+    /**
+     * how long a finished match is kept for its players before it is evicted, 0 to keep it until they all leave
+     */
+    public int matchFinishedTtlSeconds = 300;
+    /**
+     * a second port for match sockets, served like httpPort for older clients; set it to httpPort to use a single port
+     */
+    public int webSocketPort = 8888;
+    /**
+     * the number of event loop threads serving the connections of both ports
+     */
+    public int webSocketIoThreads = 2;
+    /**
+     * how long a player has to open its match socket after joining a match
+     */
+    public int joinTokenTtlSeconds = 30;
+    /**
+     * the largest payload accepted in a single socket frame
+     */
+    public int webSocketMaxFrameSize = 65536;
+    /**
+     * the largest payload accepted for a message reassembled from fragments
+     */
+    public int webSocketMaxMessageSize = 1 << 20;
+    /**
+     * the number of frames that may wait to be sent on a socket before its player is disconnected
+     */
+    public int webSocketMaxQueuedFrames = 64;
+    /**
+     * how long a socket may refuse data before its player is disconnected
+     */
+    public long webSocketMaxStallMillis = 10000;
+    /**
+     * how long a socket may stay silent before it is pinged
+     */
+    public int webSocketPingIntervalSeconds = 15;
+    /**
+     * how long a pinged socket, or a socket still in its opening handshake, has to answer before it is closed
+     */
+    public int webSocketPongTimeoutSeconds = 10;
+    /**
+     * how long the seat of a player whose socket dropped is kept for the player to resume
+     */
+    public int webSocketResumeGraceSeconds = 30;
+    /**
+     * the number of past match outputs kept to replay to a resuming player, at most half of webSocketMaxQueuedFrames
+     */
+    public int webSocketResumeBufferSize = 32;
+    /**
+     * the shortest time between two match outputs sent to spectators
+     */
+    public int webSocketSpectatorIntervalMillis = 1000;
+    /**
+     * whether match sockets may negotiate permessage-deflate compression
+     */
+    public boolean webSocketCompression = true;
+    /**
+     * the length under which a socket message is sent uncompressed
+     */
+    public int webSocketCompressionThreshold = 256;
+
+    /**
+     * Loads the configuration file, falling back to the defaults if it is missing or malformed.
+     *
+     * @return the server configuration
+     */
+    public static ServerConfig load() {
+        try (Reader reader = new FileReader(CONFIG_FILE)) {
+            ServerConfig config = SharedGson.get().fromJson(reader, ServerConfig.class);
+            return config == null ? new ServerConfig() : config;
+        } catch (IOException | JsonParseException e) {
+            System.out.println("Can't read the server configuration, using the defaults.");
+            return new ServerConfig();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SharedFrame Class
+ * <p>
+ * An encoded frame written to many connections. Each connection writes its own view of the same pooled bytes, and the
+ * buffer goes back to the pool once the last reference is released.
+ */
+class SharedFrame {
+
+    private final ByteBuffer frame;
+    private final BufferPool pool;
+    private final AtomicInteger references;
+
+    private SharedFrame(ByteBuffer frame, BufferPool pool) {
+        this.frame = frame;
+        this.pool = pool;
+        this.references = new AtomicInteger(1);
+    }
+
+    /**
+     * Shares an encoded frame. The caller owns the first reference.
+     *
+     * @param pool  the pool the frame buffer belongs to
+     * @param frame the frame, in read mode
+     * @return the shared frame
+     */
+    static SharedFrame of(BufferPool pool, ByteBuffer frame) {
+        return new SharedFrame(frame, pool);
+    }
+
+    /**
+     * Encodes a text frame. The caller owns the first reference.
+     *
+     * @param pool    the pool the frame buffer is taken from
+     * @param message the text to send
+     * @return the shared frame
+     */
+    static SharedFrame text(BufferPool pool, String message) {
+        return new SharedFrame(WebSocketFrameCodec.encodeText(pool, message), pool);
+    }
+
+    /**
+     * @return an independent view of the frame bytes, in read mode
+     */
+    ByteBuffer view() {
+        return frame.duplicate();
+    }
+
+    /**
+     * @return the number of bytes of the frame
+     */
+    int size() {
+        return frame.remaining();
+    }
+
+    /**
+     * Takes a reference, unless the frame has already been released.
+     *
+     * @return false if the frame can no longer be used
+     */
+    boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Drops a reference.
+     */
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            pool.release(frame);
+        }
+    }
+}
@@ -19,12 +19,14 @@ import java.util.Set;
 public class TemplateRequestHandler extends RequestHandler {
 
     private final TemplateManager templateManager;
+    private final ListingCache listings;
     /**
      * Constructor for TemplateRequestHandler()
      * @param templateManager template manager that contains all templates and able to make change to them
      */
     public TemplateRequestHandler(TemplateManager templateManager) {
         this.templateManager = templateManager;
+        this.listings = new ListingCache(ListingCache.DEFAULT_CAPACITY);
     }
 
     /**
@@ -70,7 +72,7 @@ public class TemplateRequestHandler extends RequestHandler {
     }
 
     private void handleCreate(HttpExchange exchange) throws IOException {
-        CreateTemplateRequestBody body = gson.fromJson(getRequestBody(exchange), CreateTemplateRequestBody.class);
+        CreateTemplateRequestBody body = readRequestBody(exchange, CreateTemplateRequestBody.class);
         try {
             templateManager.createTemplate(body.attrMap, body.genre);
             sendResponse(exchange, 201, "Success!");
@@ -86,7 +88,7 @@ public class TemplateRequestHandler extends RequestHandler {
         TemplateAllAttrsResponseBody res = new TemplateAllAttrsResponseBody();
         try {
             res.attrMap = templateManager.getDefaultAttrMap(GameGenre.valueOf(genre));
-            sendResponse(exchange, 200, gson.toJson(res));
+            sendJsonResponse(exchange, 200, res);
         } catch (IllegalArgumentException e) {
             sendResponse(exchange, 400, "Genre is invalid.");
         }
@@ -94,7 +96,7 @@ public class TemplateRequestHandler extends RequestHandler {
     }
 
     private void handleEdit(HttpExchange exchange) throws IOException {
-        EditTemplateRequestBody body = gson.fromJson(getRequestBody(exchange), EditTemplateRequestBody.class);
+        EditTemplateRequestBody body = readRequestBody(exchange, EditTemplateRequestBody.class);
         try {
             System.out.println(body.attrMap);
             templateManager.editTemplate(body.attrMap, body.templateID);
@@ -114,13 +116,18 @@ public class TemplateRequestHandler extends RequestHandler {
             TemplateAllAttrsResponseBody body = new TemplateAllAttrsResponseBody();
             body.templateID = templateID;
             body.attrMap = templateManager.getAttributeMap(templateID);
-            sendResponse(exchange, 200, gson.toJson(body));
+            sendJsonResponse(exchange, 200, body);
         } catch (InvalidIDException e) {
             sendResponse(exchange, 400, "Invalid Template ID.");
         }
     }
 
     private void handleGetAllTemplates(HttpExchange exchange) throws IOException {
+        sendListingResponse(exchange, listings, listings.etag(templateManager.getVersion()),
+                this::getAllTemplatesData);
+    }
+
+    private Set<GeneralTemplateDataResponseBody> getAllTemplatesData() {
         Set<String> allIDs = templateManager.getAllTemplateIDs();
         Set<GeneralTemplateDataResponseBody> dataSet = new HashSet<>();
 
@@ -135,7 +142,7 @@ public class TemplateRequestHandler extends RequestHandler {
                throw new RuntimeException("System failure: The template ID got from template manager is invalid");
             }
         }
-        sendResponse(exchange, 200, gson.toJson(dataSet));
+        return dataSet;
     }
 
 }
@@ -128,7 +128,7 @@ public class UserRequestHandler extends RequestHandler {
 
 
     private void handleEditPassword(HttpExchange exchange) throws IOException {
-        EditPasswordRequestBody body = gson.fromJson(getRequestBody(exchange), EditPasswordRequestBody.class);
+        EditPasswordRequestBody body = readRequestBody(exchange, EditPasswordRequestBody.class);
         try {
             userManager.editPassword(body.userID,body.oldPassword,body.newPassword);
             sendResponse(exchange, 204, null);
@@ -142,7 +142,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleEditUsername(HttpExchange exchange) throws IOException {
-        EditUsernameRequestBody body = gson.fromJson(getRequestBody(exchange), EditUsernameRequestBody.class);
+        EditUsernameRequestBody body = readRequestBody(exchange, EditUsernameRequestBody.class);
         try {
             userManager.editUsername(body.userID,body.newUsername);
             sendResponse(exchange, 204, null);
@@ -154,7 +154,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleEditEmail(HttpExchange exchange) throws IOException {
-        EditEmailRequestBody body = gson.fromJson(getRequestBody(exchange), EditEmailRequestBody.class);
+        EditEmailRequestBody body = readRequestBody(exchange, EditEmailRequestBody.class);
         try {
             userManager.editEmail(body.userId, body.newEmail);
             sendResponse(exchange, 204, null);
@@ -167,7 +167,7 @@ public class UserRequestHandler extends RequestHandler {
 
 
     private void handleRemoveFriend(HttpExchange exchange) throws IOException {
-        FriendRequestBody body = gson.fromJson(getRequestBody(exchange), FriendRequestBody.class);
+        FriendRequestBody body = readRequestBody(exchange, FriendRequestBody.class);
         try {
             userManager.removeFriend(body.senderID, body.receiverID);
             userManager.removeFriend(body.receiverID, body.senderID);
@@ -178,7 +178,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleCancelFriendRequest(HttpExchange exchange) throws IOException {
-        FriendRequestBody body = gson.fromJson(getRequestBody(exchange), FriendRequestBody.class);
+        FriendRequestBody body = readRequestBody(exchange, FriendRequestBody.class);
         try {
             userManager.removePendingFriend(body.receiverID, body.senderID);
             sendResponse(exchange, 204, null);
@@ -188,7 +188,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleAcceptPendingFriend(HttpExchange exchange) throws IOException {
-        FriendRequestBody body = gson.fromJson(getRequestBody(exchange), FriendRequestBody.class);
+        FriendRequestBody body = readRequestBody(exchange, FriendRequestBody.class);
         try {
             userManager.removePendingFriend(body.senderID, body.receiverID);
             userManager.addFriend(body.senderID, body.receiverID);
@@ -200,7 +200,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleDeclinePendingFriend(HttpExchange exchange) throws IOException {
-        FriendRequestBody body = gson.fromJson(getRequestBody(exchange), FriendRequestBody.class);
+        FriendRequestBody body = readRequestBody(exchange, FriendRequestBody.class);
         try {
             userManager.removePendingFriend(body.senderID, body.receiverID);
             sendResponse(exchange, 204, null);
@@ -211,14 +211,14 @@ public class UserRequestHandler extends RequestHandler {
 
     private void handleGetAllMembers(HttpExchange exchange) throws IOException {
         if (exchange.getRequestURI().getQuery() == null) {
-            sendResponse(exchange, 200, gson.toJson(getAllMembers()));
+            sendJsonResponse(exchange, 200, getAllMembers());
         }
         else {
             String userID = getQueryArgFromGET(exchange);
             if (userID == null)
                 return;
             try {
-                sendResponse(exchange, 200, gson.toJson(getAllMembersExcludeFriendsOf(userID)));
+                sendJsonResponse(exchange, 200, getAllMembersExcludeFriendsOf(userID));
             } catch (InvalidIDException e) {
                 sendResponse(exchange, 400, "Invalid user ID.");
             }
@@ -265,7 +265,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleSendFriendRequest(HttpExchange exchange) throws IOException {
-        FriendRequestBody body = gson.fromJson(getRequestBody(exchange), FriendRequestBody.class);
+        FriendRequestBody body = readRequestBody(exchange, FriendRequestBody.class);
         try {
             userManager.addPendingFriend(body.receiverID, body.senderID);
             sendResponse(exchange, 204, null);
@@ -275,7 +275,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleForgotPassword(HttpExchange exchange) throws IOException {
-        PasswordResetRequestBody body = gson.fromJson(getRequestBody(exchange), PasswordResetRequestBody.class);
+        PasswordResetRequestBody body = readRequestBody(exchange, PasswordResetRequestBody.class);
         try {
             String generatedPass = userManager.createTempPassword(body.username, body.email);
             emailService.sendResetPasswordEmail(userManager.getEmail(userManager.getUserId(body.username)),
@@ -289,7 +289,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleDeleteUser(HttpExchange exchange) throws IOException {
-        DeleteUserRequestBody body = gson.fromJson(getRequestBody(exchange), DeleteUserRequestBody.class);
+        DeleteUserRequestBody body = readRequestBody(exchange, DeleteUserRequestBody.class);
         try {
             userManager.deleteUser(body.userID);
             sendResponse(exchange, 204, null);
@@ -299,7 +299,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleRegister(HttpExchange exchange) throws IOException {
-        RegisterRequestBody body = gson.fromJson(getRequestBody(exchange), RegisterRequestBody.class);
+        RegisterRequestBody body = readRequestBody(exchange, RegisterRequestBody.class);
         try {
             if (body.role != UserRole.ADMIN) {
                 userManager.promoteTrialUser(body.userID, body.username, body.email, body.role, body.password);
@@ -332,13 +332,13 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleLogin(HttpExchange exchange) throws IOException {
-        LoginRequestBody body = gson.fromJson(getRequestBody(exchange), LoginRequestBody.class);
+        LoginRequestBody body = readRequestBody(exchange, LoginRequestBody.class);
         try {
             String userID = userManager.login(body.username, body.password);
             LoginResponseBody resBody = new LoginResponseBody();
             resBody.userID = userID;
             resBody.role = userManager.getUserRole(userID);
-            sendResponse(exchange, 200, gson.toJson(resBody));
+            sendJsonResponse(exchange, 200, resBody);
         } catch (InvalidUsernameException | IncorrectPasswordException | ExpiredUserException e) {
             sendResponse(exchange, 400, "User doesn't exist, is expired, or the password is incorrect.");
         } catch (InvalidIDException e) {
@@ -354,7 +354,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleLogout(HttpExchange exchange) throws IOException {
-        LogoutRequestBody body = gson.fromJson(getRequestBody(exchange), LogoutRequestBody.class);
+        LogoutRequestBody body = readRequestBody(exchange, LogoutRequestBody.class);
         try {
             userManager.logout(body.userID);
             sendResponse(exchange, 204, null);
@@ -382,7 +382,7 @@ public class UserRequestHandler extends RequestHandler {
             throw new RuntimeException("A friend ID in the friend list is invalid. This should never happen.");
         }
         //send response
-        sendResponse(exchange, 200, gson.toJson(dataSet));
+        sendJsonResponse(exchange, 200, dataSet);
     }
 
     private void handleGetPendingFriends(HttpExchange exchange) throws IOException {
@@ -405,7 +405,7 @@ public class UserRequestHandler extends RequestHandler {
             throw new RuntimeException("A user in this pending list has an invalid ID. This means illegal datum.");
         }
         //send response
-        sendResponse(exchange, 200, gson.toJson(dataSet));
+        sendJsonResponse(exchange, 200, dataSet);
     }
 
     private void handleGetUserID(HttpExchange exchange) throws IOException {
@@ -437,7 +437,7 @@ public class UserRequestHandler extends RequestHandler {
         try {
             body.userID = userID;
             body.email = userManager.getEmail(userID);
-            sendResponse(exchange, 200, gson.toJson(body));
+            sendJsonResponse(exchange, 200, body);
         } catch (InvalidIDException e) {
             sendResponse(exchange, 400, "Invalid User ID provided.");
         }
@@ -455,7 +455,7 @@ public class UserRequestHandler extends RequestHandler {
     }
 
     private void handleBanUser(HttpExchange exchange) throws IOException {
-        BanUserRequestBody body = gson.fromJson(getRequestBody(exchange), BanUserRequestBody.class);
+        BanUserRequestBody body = readRequestBody(exchange, BanUserRequestBody.class);
         try {
             if (!hasPermission(exchange, userManager.getUserRole(body.adminID), UserRole.ADMIN))
                 return;
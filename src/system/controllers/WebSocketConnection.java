@@ -0,0 +1,409 @@
+package system.controllers;
+
+import system.utilities.HashedWheelTimer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+/**
+ * WebSocketConnection Class
+ * <p>
+ * The server side of one connection of the shared port. It starts out as an HTTP/1.1 connection: REST requests are
+ * handed to the {@link HttpRouter} one at a time, and the requests pipelined behind one wait in the read buffer until
+ * its response is queued. A connection kept alive but idle for too long is closed.
+ * <p>
+ * Once a request asks for a WebSocket, the connection performs the opening handshake, then decodes the client frames
+ * with a {@link WebSocketFrameCodec} and hands the messages to its {@link WebSocketListener}. The permessage-deflate
+ * extension is used when the client offers it and the server configuration allows it, and the match messages are
+ * binary when the client picks the {@link BinaryMatchProtocol#BINARY} subprotocol.
+ * <p>
+ * A socket that stays silent is pinged, and one that doesn't answer in time is reaped. The deadlines are kept on the
+ * shared {@link HashedWheelTimer} of the server.
+ */
+class WebSocketConnection extends NioConnection implements WebSocketFrameCodec.FrameHandler {
+
+    private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private enum State {HTTP, OPEN, CLOSING}
+
+    private final BufferPool readPool;
+    private final BufferPool writePool;
+    private final WebSocketFrameCodec codec;
+    private final ServerConfig config;
+    private final WebSocketMetrics metrics;
+    private final HashedWheelTimer timer;
+    private final HttpRouter router;
+    private final long keepAliveMillis;
+    private final long pingIntervalMillis;
+    private final long pongTimeoutMillis;
+    private ByteBuffer inbound;
+    private int required;
+    private boolean reading;
+    private boolean requestInFlight;
+    private State state;
+    private long lastReceived;
+    private long pingSentAt;
+    private volatile HashedWheelTimer.Timeout heartbeat;
+    private volatile int peerCloseCode;
+    private volatile WebSocketHandshake handshake;
+    private volatile PerMessageDeflate deflate;
+    private volatile boolean binary;
+    private volatile WebSocketListener listener;
+
+    /**
+     * Constructor of WebSocketConnection
+     *
+     * @param channel   the accepted channel
+     * @param listener  the listener that receives the first messages of this connection
+     * @param readPool  the pool of heap buffers that incoming data is read into
+     * @param writePool the pool of direct buffers that outgoing frames are encoded into
+     * @param config    the server configuration
+     * @param metrics   the counters this connection reports to
+     * @param timer     the timer that keeps the heartbeat deadlines
+     * @param router    the router of the REST requests
+     */
+    WebSocketConnection(SocketChannel channel, WebSocketListener listener, BufferPool readPool, BufferPool writePool,
+                        ServerConfig config, WebSocketMetrics metrics, HashedWheelTimer timer, HttpRouter router) {
+        super(channel, config.webSocketMaxQueuedFrames, config.webSocketMaxStallMillis, metrics);
+        this.listener = listener;
+        this.readPool = readPool;
+        this.writePool = writePool;
+        this.config = config;
+        this.metrics = metrics;
+        this.timer = timer;
+        this.router = router;
+        this.keepAliveMillis = TimeUnit.SECONDS.toMillis(config.httpKeepAliveSeconds);
+        this.pingIntervalMillis = TimeUnit.SECONDS.toMillis(config.webSocketPingIntervalSeconds);
+        this.pongTimeoutMillis = TimeUnit.SECONDS.toMillis(config.webSocketPongTimeoutSeconds);
+        this.codec = new WebSocketFrameCodec(readPool, config.webSocketMaxFrameSize, config.webSocketMaxMessageSize);
+        this.inbound = readPool.acquire(INITIAL_READ_BUFFER_SIZE);
+        this.state = State.HTTP;
+    }
+
+    /**
+     * Replaces the listener, for instance once the connection has been matched with a player.
+     *
+     * @param listener the new listener
+     */
+    void setListener(WebSocketListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the opening handshake of this connection, or null if it hasn't completed
+     */
+    WebSocketHandshake getHandshake() {
+        return handshake;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Also starts the heartbeat, which closes the connection if it idles as an HTTP connection.
+     */
+    @Override
+    void attach(NioEventLoop loop, SelectionKey key) {
+        super.attach(loop, key);
+        lastReceived = System.currentTimeMillis();
+        scheduleHeartbeat(keepAliveMillis);
+    }
+
+    private void scheduleHeartbeat(long delayMillis) {
+        heartbeat = timer.newTimeout(() -> getLoop().execute(this::checkHeartbeat), delayMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void checkHeartbeat() {
+        if (isClosed()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (state == State.HTTP) {
+            if (requestInFlight) {
+                scheduleHeartbeat(keepAliveMillis);
+            } else if (now - lastReceived >= keepAliveMillis) {
+                close();
+            } else {
+                scheduleHeartbeat(keepAliveMillis - (now - lastReceived));
+            }
+        } else if (state != State.OPEN || (pingSentAt != 0 && now - pingSentAt >= pongTimeoutMillis)) {
+            System.out.println("Reaping a match socket that stopped answering.");
+            metrics.connectionReaped();
+            close();
+        } else if (pingSentAt != 0) {
+            scheduleHeartbeat(pongTimeoutMillis - (now - pingSentAt));
+        } else if (now - lastReceived >= pingIntervalMillis) {
+            pingSentAt = now;
+            write(WebSocketFrameCodec.encodeFrame(writePool, WebSocketFrameCodec.OPCODE_PING, EMPTY), writePool);
+            scheduleHeartbeat(pongTimeoutMillis);
+        } else {
+            scheduleHeartbeat(pingIntervalMillis - (now - lastReceived));
+        }
+    }
+
+    /**
+     * @return the status code of the close frame sent by the peer, or 0 if it didn't send one
+     */
+    int getPeerCloseCode() {
+        return peerCloseCode;
+    }
+
+    /**
+     * @return the permessage-deflate extension negotiated by this connection, or null if there is none
+     */
+    PerMessageDeflate getDeflate() {
+        return deflate;
+    }
+
+    /**
+     * @return whether this connection negotiated the binary match protocol
+     */
+    boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void handleRead() throws IOException {
+        if (inbound.capacity() < required) {
+            ByteBuffer larger = readPool.acquire(Math.max(required, inbound.capacity() * 2));
+            inbound.flip();
+            larger.put(inbound);
+            readPool.release(inbound);
+            inbound = larger;
+        }
+        int read = channel.read(inbound);
+        if (read < 0) {
+            close();
+            return;
+        }
+        if (read > 0) {
+            // Any data proves the peer alive, not only pongs.
+            lastReceived = System.currentTimeMillis();
+            pingSentAt = 0;
+        }
+        processInbound();
+    }
+
+    private void processInbound() {
+        inbound.flip();
+        reading = true;
+        try {
+            if (state == State.HTTP && !requestInFlight) {
+                readRequest();
+            }
+            if (state == State.OPEN) {
+                required = codec.decode(inbound, this);
+            }
+            if (state == State.CLOSING) {
+                inbound.position(inbound.limit());
+            }
+        } finally {
+            inbound.compact();
+            reading = false;
+            if (isClosed()) {
+                readPool.release(inbound);
+            }
+        }
+    }
+
+    private void readRequest() {
+        HttpRequest request;
+        try {
+            request = HttpRequest.parse(inbound, config.httpMaxBodySize);
+        } catch (HttpRequest.MalformedRequestException e) {
+            reject(e.status);
+            return;
+        }
+        if (request == null) {
+            required = inbound.remaining() + 1;
+            return;
+        }
+        required = 0;
+        if (WebSocketHandshake.isRequested(request)) {
+            upgrade(new WebSocketHandshake(request));
+        } else {
+            // The next request is only read once this one is answered, which keeps the responses in order.
+            requestInFlight = true;
+            setReadInterest(false);
+            router.dispatch(request, this);
+        }
+    }
+
+    /**
+     * Queues the response of the REST request in flight, then reads the next request. Safe to call from any thread.
+     *
+     * @param response  the encoded response, a buffer of the write pool
+     * @param keepAlive whether the connection stays open after the response
+     */
+    void sendHttpResponse(ByteBuffer response, boolean keepAlive) {
+        write(response, writePool);
+        endHttpResponse(keepAlive);
+    }
+
+    /**
+     * Reads the next request once the whole response of the REST request in flight has been queued, or closes the
+     * connection after it. Safe to call from any thread.
+     *
+     * @param keepAlive whether the connection stays open after the response
+     */
+    void endHttpResponse(boolean keepAlive) {
+        getLoop().execute(() -> {
+            if (isClosed()) {
+                return;
+            }
+            requestInFlight = false;
+            lastReceived = System.currentTimeMillis();
+            if (!keepAlive) {
+                state = State.CLOSING;
+                closeAfterFlush();
+                return;
+            }
+            setReadInterest(true);
+            processInbound();
+        });
+    }
+
+    private void upgrade(WebSocketHandshake handshake) {
+        if (!handshake.isUpgrade()) {
+            reject(400);
+            return;
+        }
+        this.handshake = handshake;
+        Map<String, String> responseHeaders = new LinkedHashMap<>();
+        if (config.webSocketCompression) {
+            deflate = PerMessageDeflate.negotiate(handshake.getHeader("Sec-WebSocket-Extensions"),
+                    config.webSocketCompressionThreshold, metrics);
+        }
+        if (deflate != null) {
+            codec.enableCompression();
+            responseHeaders.put("Sec-WebSocket-Extensions", deflate.responseHeader());
+        }
+        String subprotocol = BinaryMatchProtocol.negotiate(handshake.getHeader("Sec-WebSocket-Protocol"));
+        if (subprotocol != null) {
+            binary = subprotocol.equals(BinaryMatchProtocol.BINARY);
+            responseHeaders.put("Sec-WebSocket-Protocol", subprotocol);
+        }
+        write(handshake.acceptResponse(responseHeaders));
+        state = State.OPEN;
+        required = 0;
+        listener.onOpen(this);
+    }
+
+    private void reject(int status) {
+        state = State.CLOSING;
+        write(NioHttpExchange.errorResponse(writePool, status, false), writePool);
+        closeAfterFlush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onMessage(int opcode, ByteBuffer payload, boolean compressed) {
+        if (compressed) {
+            try {
+                payload = deflate.inflate(payload, config.webSocketMaxMessageSize);
+            } catch (DataFormatException e) {
+                sendClose(WebSocketFrameCodec.CLOSE_INVALID_PAYLOAD);
+                return;
+            }
+            if (payload == null) {
+                sendClose(WebSocketFrameCodec.CLOSE_TOO_BIG);
+                return;
+            }
+        }
+        if (opcode == WebSocketFrameCodec.OPCODE_TEXT) {
+            listener.onMessage(this, WebSocketFrameCodec.decodeText(payload));
+        } else if (binary) {
+            listener.onBinaryMessage(this, payload);
+        } else {
+            sendClose(WebSocketFrameCodec.CLOSE_UNSUPPORTED_DATA);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onPing(ByteBuffer payload) {
+        write(WebSocketFrameCodec.encodeFrame(writePool, WebSocketFrameCodec.OPCODE_PONG, payload), writePool);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onPong() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onClose(int code) {
+        peerCloseCode = code;
+        sendClose(code == WebSocketFrameCodec.CLOSE_NO_STATUS ? WebSocketFrameCodec.CLOSE_NORMAL : code);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError(int closeCode) {
+        sendClose(closeCode);
+    }
+
+    /**
+     * Sends a text message. Safe to call from any thread.
+     *
+     * @param message the message to send
+     * @return false if the connection is already closed
+     */
+    boolean sendText(String message) {
+        ByteBuffer frame = deflate == null ? null : deflate.getCompressor().compressText(writePool, message);
+        if (frame == null) {
+            frame = WebSocketFrameCodec.encodeText(writePool, message);
+        }
+        return write(frame, writePool);
+    }
+
+    /**
+     * Starts the closing handshake with the given status code.
+     *
+     * @param code the close status code
+     */
+    void sendClose(int code) {
+        state = State.CLOSING;
+        writeFinal(WebSocketFrameCodec.encodeClose(writePool, code), writePool);
+        closeAfterFlush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onClosed() {
+        if (heartbeat != null) {
+            heartbeat.cancel();
+        }
+        codec.release();
+        if (deflate != null) {
+            deflate.release();
+        }
+        if (!reading) {
+            // Otherwise the read in progress still uses the buffer and releases it when done.
+            readPool.release(inbound);
+        }
+        listener.onClose(this);
+    }
+}
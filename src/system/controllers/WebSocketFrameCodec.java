@@ -0,0 +1,388 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WebSocketFrameCodec Class
+ * <p>
+ * Decodes the frames of one client connection and encodes the frames sent to it, following RFC 6455 section 5.
+ * Payloads are unmasked in place inside the read buffer and handed out as views of it, and fragmented messages are
+ * reassembled in a pooled buffer, so decoding a message allocates nothing but the final String.
+ */
+class WebSocketFrameCodec {
+
+    static final int OPCODE_CONTINUATION = 0x0;
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+
+    static final int CLOSE_NORMAL = 1000;
+    static final int CLOSE_NO_STATUS = 1005;
+    static final int CLOSE_PROTOCOL_ERROR = 1002;
+    static final int CLOSE_UNSUPPORTED_DATA = 1003;
+    static final int CLOSE_INVALID_PAYLOAD = 1007;
+    static final int CLOSE_TOO_BIG = 1009;
+
+    /**
+     * the longest possible frame header of a server frame, which is never masked
+     */
+    static final int MAX_HEADER_LENGTH = 10;
+    /**
+     * the first reserved bit, which marks a compressed message when permessage-deflate is in use
+     */
+    static final int RSV1 = 0x40;
+
+    /**
+     * FrameHandler Interface
+     * <p>
+     * Receives decoded frames. A payload buffer is only valid for the duration of the call.
+     */
+    interface FrameHandler {
+
+        /**
+         * @param opcode     {@link #OPCODE_TEXT} or {@link #OPCODE_BINARY}
+         * @param payload    the complete, reassembled message
+         * @param compressed whether the message was sent with {@link #RSV1}, which means it is deflated
+         */
+        void onMessage(int opcode, ByteBuffer payload, boolean compressed);
+
+        /**
+         * @param payload the ping application data
+         */
+        void onPing(ByteBuffer payload);
+
+        /**
+         * Called for unsolicited and solicited pongs alike.
+         */
+        void onPong();
+
+        /**
+         * @param code the status code of the close frame
+         */
+        void onClose(int code);
+
+        /**
+         * Called when the peer broke the protocol, decoding stops afterwards.
+         *
+         * @param closeCode the status code to close the connection with
+         */
+        void onError(int closeCode);
+    }
+
+    private final BufferPool pool;
+    private final int maxFrameSize;
+    private final int maxMessageSize;
+    private ByteBuffer fragments;
+    private int fragmentedOpcode;
+    private boolean fragmentedCompressed;
+    private boolean compressionEnabled;
+
+    /**
+     * Constructor of WebSocketFrameCodec
+     *
+     * @param pool           the pool that holds reassembly buffers
+     * @param maxFrameSize   the largest payload accepted in a single frame
+     * @param maxMessageSize the largest payload accepted for a reassembled message
+     */
+    WebSocketFrameCodec(BufferPool pool, int maxFrameSize, int maxMessageSize) {
+        this.pool = pool;
+        this.maxFrameSize = maxFrameSize;
+        this.maxMessageSize = maxMessageSize;
+        this.fragmentedOpcode = -1;
+    }
+
+    /**
+     * Accepts {@link #RSV1} on the first frame of a message, once permessage-deflate has been negotiated.
+     */
+    void enableCompression() {
+        compressionEnabled = true;
+    }
+
+    /**
+     * Decodes every complete frame of the buffer. Incomplete frames are left in the buffer.
+     *
+     * @param in      the read buffer, in read mode
+     * @param handler receives the decoded frames
+     * @return the size of the next frame if it doesn't fit in the buffer yet, 0 otherwise
+     */
+    int decode(ByteBuffer in, FrameHandler handler) {
+        while (in.remaining() >= 2) {
+            int start = in.position();
+            int first = in.get(start) & 0xFF;
+            int second = in.get(start + 1) & 0xFF;
+            boolean fin = (first & 0x80) != 0;
+            int opcode = first & 0x0F;
+            long length = second & 0x7F;
+            int headerLength = 2;
+            if (length == 126) {
+                headerLength = 4;
+                if (in.remaining() < headerLength) {
+                    return 0;
+                }
+                length = in.getShort(start + 2) & 0xFFFF;
+            } else if (length == 127) {
+                headerLength = 10;
+                if (in.remaining() < headerLength) {
+                    return 0;
+                }
+                length = in.getLong(start + 2);
+            }
+
+            boolean compressed = (first & RSV1) != 0;
+            if ((first & 0x30) != 0 || (compressed && (!compressionEnabled || opcode == OPCODE_CONTINUATION
+                    || opcode >= OPCODE_CLOSE)) || (second & 0x80) == 0
+                    || (opcode >= OPCODE_CLOSE && (!fin || length > 125))) {
+                // Reserved bits need a negotiated extension, and permessage-deflate only marks the first frame of a
+                // data message. Clients must mask, control frames can't be fragmented.
+                handler.onError(CLOSE_PROTOCOL_ERROR);
+                return 0;
+            }
+            if (length < 0 || length > maxFrameSize) {
+                handler.onError(CLOSE_TOO_BIG);
+                return 0;
+            }
+            int frameLength = headerLength + 4 + (int) length;
+            if (in.remaining() < frameLength) {
+                return frameLength;
+            }
+
+            int payloadStart = start + headerLength + 4;
+            int payloadEnd = payloadStart + (int) length;
+            unmask(in, in.getInt(start + headerLength), payloadStart, payloadEnd);
+            int limit = in.limit();
+            in.limit(payloadEnd).position(payloadStart);
+            boolean valid = handleFrame(fin, opcode, compressed, in, handler);
+            in.limit(limit).position(payloadEnd);
+            if (!valid) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private static void unmask(ByteBuffer in, int mask, int from, int to) {
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            in.putInt(i, in.getInt(i) ^ mask);
+        }
+        for (int shift = 24; i < to; i++, shift -= 8) {
+            in.put(i, (byte) (in.get(i) ^ (mask >>> shift)));
+        }
+    }
+
+    private boolean handleFrame(boolean fin, int opcode, boolean compressed, ByteBuffer payload,
+                                FrameHandler handler) {
+        switch (opcode) {
+            case OPCODE_TEXT:
+            case OPCODE_BINARY:
+                if (fragmentedOpcode >= 0) {
+                    handler.onError(CLOSE_PROTOCOL_ERROR);
+                    return false;
+                }
+                if (fin) {
+                    handler.onMessage(opcode, payload, compressed);
+                    return true;
+                }
+                fragmentedOpcode = opcode;
+                fragmentedCompressed = compressed;
+                return appendFragment(payload, handler);
+            case OPCODE_CONTINUATION:
+                if (fragmentedOpcode < 0) {
+                    handler.onError(CLOSE_PROTOCOL_ERROR);
+                    return false;
+                }
+                if (!appendFragment(payload, handler)) {
+                    return false;
+                }
+                if (fin) {
+                    fragments.flip();
+                    handler.onMessage(fragmentedOpcode, fragments, fragmentedCompressed);
+                    releaseFragments();
+                }
+                return true;
+            case OPCODE_PING:
+                handler.onPing(payload);
+                return true;
+            case OPCODE_PONG:
+                handler.onPong();
+                return true;
+            case OPCODE_CLOSE:
+                handler.onClose(payload.remaining() >= 2 ? payload.getShort(payload.position()) & 0xFFFF
+                        : CLOSE_NO_STATUS);
+                return false;
+            default:
+                handler.onError(CLOSE_PROTOCOL_ERROR);
+                return false;
+        }
+    }
+
+    private boolean appendFragment(ByteBuffer payload, FrameHandler handler) {
+        int size = (fragments == null ? 0 : fragments.position()) + payload.remaining();
+        if (size > maxMessageSize) {
+            releaseFragments();
+            handler.onError(CLOSE_TOO_BIG);
+            return false;
+        }
+        if (fragments == null) {
+            fragments = pool.acquire(size);
+        } else if (fragments.remaining() < payload.remaining()) {
+            ByteBuffer larger = pool.acquire(Math.max(size, fragments.capacity() * 2));
+            fragments.flip();
+            larger.put(fragments);
+            pool.release(fragments);
+            fragments = larger;
+        }
+        fragments.put(payload);
+        return true;
+    }
+
+    private void releaseFragments() {
+        if (fragments != null) {
+            pool.release(fragments);
+            fragments = null;
+        }
+        fragmentedOpcode = -1;
+    }
+
+    /**
+     * Gives the reassembly buffer back to the pool, once the connection is closed.
+     */
+    void release() {
+        releaseFragments();
+    }
+
+    /**
+     * Decodes a text payload.
+     *
+     * @param payload a heap buffer positioned on the payload
+     * @return the decoded text
+     */
+    static String decodeText(ByteBuffer payload) {
+        return new String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes a complete text frame into a pooled buffer, without any intermediate byte array.
+     *
+     * @param pool    the pool the frame buffer is taken from
+     * @param message the text to send
+     * @return the frame, in read mode
+     */
+    static ByteBuffer encodeText(BufferPool pool, String message) {
+        int length = utf8Length(message);
+        ByteBuffer frame = pool.acquire(MAX_HEADER_LENGTH + length);
+        putHeader(frame, OPCODE_TEXT, length);
+        putUtf8(frame, message);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a complete frame into a pooled buffer.
+     *
+     * @param pool    the pool the frame buffer is taken from
+     * @param opcode  the frame opcode
+     * @param payload the payload, which is left untouched
+     * @return the frame, in read mode
+     */
+    static ByteBuffer encodeFrame(BufferPool pool, int opcode, ByteBuffer payload) {
+        ByteBuffer frame = pool.acquire(MAX_HEADER_LENGTH + payload.remaining());
+        int position = payload.position();
+        putHeader(frame, opcode, payload.remaining());
+        frame.put(payload);
+        payload.position(position);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Encodes a close frame into a pooled buffer.
+     *
+     * @param pool the pool the frame buffer is taken from
+     * @param code the close status code
+     * @return the frame, in read mode
+     */
+    static ByteBuffer encodeClose(BufferPool pool, int code) {
+        ByteBuffer frame = pool.acquire(4);
+        putHeader(frame, OPCODE_CLOSE, 2);
+        frame.putShort((short) code);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Writes an unmasked, final frame header.
+     *
+     * @param frame  the buffer to write to
+     * @param opcode the frame opcode, with {@link #RSV1} set for a compressed message
+     * @param length the payload length
+     */
+    static void putHeader(ByteBuffer frame, int opcode, int length) {
+        frame.put((byte) (0x80 | opcode));
+        if (length < 126) {
+            frame.put((byte) length);
+        } else if (length <= 0xFFFF) {
+            frame.put((byte) 126);
+            frame.putShort((short) length);
+        } else {
+            frame.put((byte) 127);
+            frame.putLong(length);
+        }
+    }
+
+    /**
+     * @param s a string
+     * @return the number of bytes of the UTF-8 encoding of the string
+     */
+    static int utf8Length(String s) {
+        int length = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isSurrogate(c)) {
+                if (isSurrogatePair(s, i)) {
+                    length += 2;
+                    i++;
+                }
+            } else if (c >= 0x800) {
+                length += 2;
+            } else if (c >= 0x80) {
+                length += 1;
+            }
+        }
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String s, int i) {
+        return Character.isHighSurrogate(s.charAt(i)) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1));
+    }
+
+    private static void putUtf8(ByteBuffer out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (isSurrogatePair(s, i)) {
+                    int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    out.put((byte) (0xF0 | codePoint >> 18));
+                    out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    out.put((byte) (0x80 | codePoint & 0x3F));
+                } else {
+                    out.put((byte) '?'); // Same replacement as String.getBytes for a lone surrogate.
+                }
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+}
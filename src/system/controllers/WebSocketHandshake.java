@@ -0,0 +1,98 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * WebSocketHandshake Class
+ * <p>
+ * The HTTP upgrade request that opens a WebSocket connection, as described in RFC 6455 section 4.2.
+ */
+class WebSocketHandshake {
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+
+    private final HttpRequest request;
+
+    /**
+     * Constructor of WebSocketHandshake
+     *
+     * @param request a request that asks for an upgrade, see {@link #isRequested(HttpRequest)}
+     */
+    WebSocketHandshake(HttpRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * @param request a request
+     * @return whether the request asks to be upgraded to a WebSocket, well-formed or not
+     */
+    static boolean isRequested(HttpRequest request) {
+        String upgrade = request.getHeader("Upgrade");
+        return upgrade != null && upgrade.equalsIgnoreCase("websocket");
+    }
+
+    /**
+     * @param name the header name, case insensitive
+     * @return the header value, or null if the header is absent
+     */
+    String getHeader(String name) {
+        return request.getHeader(name);
+    }
+
+    /**
+     * @return the request target, including the query string
+     */
+    String getPath() {
+        return request.getTarget();
+    }
+
+    /**
+     * @param name the name of a query parameter
+     * @return the value of the first such parameter in the request target, or null if it is absent
+     */
+    String getQueryParameter(String name) {
+        return request.getQueryParameter(name);
+    }
+
+    /**
+     * @return whether this request is a well-formed WebSocket upgrade
+     */
+    boolean isUpgrade() {
+        String upgrade = getHeader("Upgrade");
+        String connection = getHeader("Connection");
+        return request.getMethod().equals("GET") && upgrade != null && upgrade.equalsIgnoreCase("websocket")
+                && connection != null && connection.toLowerCase().contains("upgrade")
+                && getHeader("Sec-WebSocket-Key") != null;
+    }
+
+    /**
+     * @param headers the negotiated headers to add to the response, such as Sec-WebSocket-Extensions
+     * @return the 101 response that accepts this upgrade
+     */
+    ByteBuffer acceptResponse(Map<String, String> headers) {
+        StringBuilder response = new StringBuilder("HTTP/1.1 101 Switching Protocols\r\n")
+                .append("Connection: Upgrade\r\n")
+                .append("Upgrade: websocket\r\n")
+                .append("Sec-WebSocket-Accept: ").append(encode(getHeader("Sec-WebSocket-Key"))).append("\r\n");
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            response.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        response.append("\r\n");
+        return ByteBuffer.wrap(response.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String encode(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("No digesting algorithm");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package system.controllers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * WebSocketListener Interface
+ * <p>
+ * Receives the events of a {@link WebSocketConnection}. Callbacks run on the event loop of the connection, so they
+ * must not block.
+ */
+interface WebSocketListener {
+
+    /**
+     * Called once the WebSocket handshake has been answered, before any message is received.
+     *
+     * @param connection the new connection
+     */
+    default void onOpen(WebSocketConnection connection) {
+    }
+
+    /**
+     * Called for every complete text message received.
+     *
+     * @param connection the connection the message arrived on
+     * @param message    the decoded message
+     */
+    void onMessage(WebSocketConnection connection, String message);
+
+    /**
+     * Called for every complete binary message received on a connection that negotiated the binary match protocol. By
+     * default the connection is closed, as binary messages are unexpected.
+     *
+     * @param connection the connection the message arrived on
+     * @param message    the message, only valid for the duration of the call
+     */
+    default void onBinaryMessage(WebSocketConnection connection, ByteBuffer message) {
+        connection.sendClose(WebSocketFrameCodec.CLOSE_UNSUPPORTED_DATA);
+    }
+
+    /**
+     * Called once when the connection is closed, whether by the peer, by a failure or by the server.
+     *
+     * @param connection the closed connection
+     */
+    void onClose(WebSocketConnection connection);
+}
@@ -0,0 +1,96 @@
+package system.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocketMetrics Class
+ * <p>
+ * Counters of the match socket layer, shared by all connections of a {@link WebSocketServer}.
+ */
+public class WebSocketMetrics {
+
+    private final LongAdder queuedFrames = new LongAdder();
+    private final LongAdder coalescedFrames = new LongAdder();
+    private final LongAdder evictedConnections = new LongAdder();
+    private final LongAdder reapedConnections = new LongAdder();
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder compressionBytesSaved = new LongAdder();
+    private final LongAdder compressionCpuNanos = new LongAdder();
+    private final LongAdder decompressionCpuNanos = new LongAdder();
+    private final LongAdder jsonOutputs = new LongAdder();
+    private final LongAdder jsonOutputBytes = new LongAdder();
+    private final LongAdder binaryOutputs = new LongAdder();
+    private final LongAdder binaryOutputBytes = new LongAdder();
+
+    void frameQueued() {
+        queuedFrames.increment();
+    }
+
+    void frameDequeued() {
+        queuedFrames.decrement();
+    }
+
+    void frameCoalesced() {
+        coalescedFrames.increment();
+    }
+
+    void connectionEvicted() {
+        evictedConnections.increment();
+    }
+
+    void connectionReaped() {
+        reapedConnections.increment();
+    }
+
+    void messageCompressed(int originalSize, int compressedSize, long cpuNanos) {
+        compressedMessages.increment();
+        compressionBytesSaved.add(originalSize - compressedSize);
+        compressionCpuNanos.add(cpuNanos);
+    }
+
+    void messageInflated(long cpuNanos) {
+        decompressionCpuNanos.add(cpuNanos);
+    }
+
+    void outputEncoded(boolean binary, int size) {
+        (binary ? binaryOutputs : jsonOutputs).increment();
+        (binary ? binaryOutputBytes : jsonOutputBytes).add(size);
+    }
+
+    /**
+     * Returns the current value of every counter:
+     * <ul>
+     *     <li>queuedFrames: the frames waiting to be written, over all connections</li>
+     *     <li>coalescedFrames: the match outputs dropped because a newer one replaced them before they were sent</li>
+     *     <li>evictedConnections: the connections closed because their player couldn't keep up</li>
+     *     <li>reapedConnections: the connections closed because their peer stopped answering pings</li>
+     *     <li>compressedMessages: the messages run through permessage-deflate, each one once however many players
+     *     it is sent to</li>
+     *     <li>compressionBytesSaved: the bytes those messages shrank by</li>
+     *     <li>compressionCpuMicros and decompressionCpuMicros: the CPU time spent compressing and inflating</li>
+     *     <li>jsonOutputs and binaryOutputs: the match outputs encoded in each format, each one once however many
+     *     players it is sent to</li>
+     *     <li>jsonOutputBytes and binaryOutputBytes: the size of those outputs before compression</li>
+     * </ul>
+     *
+     * @return a mapping of counter name to value
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("queuedFrames", queuedFrames.sum());
+        values.put("coalescedFrames", coalescedFrames.sum());
+        values.put("evictedConnections", evictedConnections.sum());
+        values.put("reapedConnections", reapedConnections.sum());
+        values.put("compressedMessages", compressedMessages.sum());
+        values.put("compressionBytesSaved", compressionBytesSaved.sum());
+        values.put("compressionCpuMicros", compressionCpuNanos.sum() / 1000);
+        values.put("decompressionCpuMicros", decompressionCpuNanos.sum() / 1000);
+        values.put("jsonOutputs", jsonOutputs.sum());
+        values.put("jsonOutputBytes", jsonOutputBytes.sum());
+        values.put("binaryOutputs", binaryOutputs.sum());
+        values.put("binaryOutputBytes", binaryOutputBytes.sum());
+        return values;
+    }
+}
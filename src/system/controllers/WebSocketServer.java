@@ -0,0 +1,479 @@
+package system.controllers;
+
+import shared.exceptions.use_case_exceptions.InvalidIDException;
+import system.utilities.HashedWheelTimer;
+import system.use_cases.managers.GameManager;
+import system.use_cases.managers.MatchManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocketServer Class
+ * <p>
+ * Accepts every connection of the system and spreads them over a small, fixed set of {@link NioEventLoop}s, so the
+ * number of threads doesn't grow with the number of players. REST requests and match sockets share the HTTP port: a
+ * connection serves REST requests through the {@link HttpRouter} until it asks for a WebSocket upgrade. The WebSocket
+ * port, when it differs, is served the same way for the clients that still open their match sockets there.
+ * <p>
+ * The first message of a new socket is a join token, handed out by {@link #expectPlayer(String, String)} when the
+ * player created or joined a match. Tokens that are never claimed expire, and their player is removed from the match.
+ * <p>
+ * One {@link HashedWheelTimer} drives the token expiry, the heartbeat of every socket and the eviction of stale
+ * matches.
+ * <p>
+ * A claimed join token becomes the token of the player's session. When the socket drops without a normal close, the
+ * player keeps their seat for a grace period, and a new socket that sends the session token, optionally followed by a
+ * space and the last sequence number it saw, resumes the session. Only the seat and the sequence numbers the player
+ * missed are restored, the match itself is untouched.
+ * <p>
+ * All sockets of a match share one {@link MatchOutputDispatcher}, so every match change is serialized only once. A
+ * socket opened with the {@code mode=delta} query parameter gets the match output as versioned deltas.
+ * <p>
+ * Spectators open their socket on the {@code /spectate} path with a token from {@link #expectSpectator(String)}. They
+ * can't send anything, hold no seat, and get the match output at most once per configured interval.
+ * <p>
+ * Sockets opened on the {@code /lobby} path need no token: the {@link LobbyFeed} pushes them the matches that can be
+ * joined as soon as they open, then every change to them.
+ */
+public class WebSocketServer implements WebSocketListener {
+
+    private static final int BUFFERS_PER_SIZE_CLASS = 256;
+    private static final int TIMER_TICK_MILLIS = 100;
+    private static final int TIMER_BUCKETS = 512;
+
+    private final MatchManager matchManager;
+    private final ServerConfig config;
+    private final BufferPool readPool;
+    private final BufferPool writePool;
+    private final HttpRouter router;
+    private final List<ServerSocketChannel> serverChannels;
+    private final NioEventLoop[] loops;
+    private final List<Thread> acceptors;
+    private final JoinRegistry joinRegistry;
+    private final HashedWheelTimer timer;
+    private final Map<String, MatchOutputDispatcher> dispatchers;
+    private final Map<String, PlayerSession> sessions;
+    private final WebSocketMetrics metrics;
+    private final AtomicInteger nextLoop;
+    private final LobbyFeed lobbyFeed;
+
+    /**
+     * PlayerSession Class
+     * <p>
+     * The seat of a player in a match, which may outlive the player's socket.
+     */
+    private static class PlayerSession {
+        final String token;
+        final String userID;
+        final String matchID;
+        final MatchOutputDispatcher outputDispatcher;
+        WebSocketConnection connection;
+        HashedWheelTimer.Timeout expiry;
+
+        PlayerSession(String token, String userID, String matchID, MatchOutputDispatcher outputDispatcher) {
+            this.token = token;
+            this.userID = userID;
+            this.matchID = matchID;
+            this.outputDispatcher = outputDispatcher;
+        }
+    }
+
+    /**
+     * Constructor of WebSocketServer
+     *
+     * @param matchManager the match manager that contains all matches and can manipulate them
+     * @param gameManager  the game manager, for the games of the matches listed in the lobby
+     * @param config       the server configuration
+     * @param router       the router of the REST requests
+     * @throws IOException if a port can't be bound
+     */
+    public WebSocketServer(MatchManager matchManager, GameManager gameManager, ServerConfig config, HttpRouter router)
+            throws IOException {
+        this.matchManager = matchManager;
+        this.config = config;
+        this.router = router;
+        int maxPooledSize = config.webSocketMaxFrameSize + WebSocketFrameCodec.MAX_HEADER_LENGTH;
+        this.readPool = new BufferPool(false, maxPooledSize, BUFFERS_PER_SIZE_CLASS);
+        this.writePool = new BufferPool(true, maxPooledSize, BUFFERS_PER_SIZE_CLASS);
+        router.setResponsePool(writePool);
+        this.dispatchers = new HashMap<>();
+        this.sessions = new HashMap<>();
+        this.metrics = new WebSocketMetrics();
+        this.joinRegistry = new JoinRegistry(config.joinTokenTtlSeconds, this::removePlayerInOrder);
+        this.timer = new HashedWheelTimer("websocket-timer", TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMER_BUCKETS);
+        this.nextLoop = new AtomicInteger();
+        this.lobbyFeed = new LobbyFeed(matchManager, gameManager, writePool);
+        matchManager.addLobbyListener(lobbyFeed);
+        this.serverChannels = new ArrayList<>();
+        this.acceptors = new ArrayList<>();
+        for (int port : new int[]{config.httpPort, config.webSocketPort}) {
+            if (port == config.httpPort && !serverChannels.isEmpty()) {
+                continue;
+            }
+            ServerSocketChannel serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), config.httpBacklog);
+            serverChannels.add(serverChannel);
+            // Not a daemon, the acceptors keep the server running until it is stopped.
+            acceptors.add(new Thread(() -> acceptConnections(serverChannel), "acceptor-" + port));
+        }
+
+        loops = new NioEventLoop[Math.max(1, config.webSocketIoThreads)];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new NioEventLoop("websocket-io-" + i);
+        }
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        for (NioEventLoop loop : loops) {
+            loop.start();
+        }
+        for (Thread acceptor : acceptors) {
+            acceptor.start();
+        }
+        timer.start();
+        timer.schedulePeriodically(joinRegistry::expire, 1, TimeUnit.SECONDS);
+        timer.schedulePeriodically(matchManager::sweep, 1, TimeUnit.SECONDS);
+        timer.schedulePeriodically(this::flushSpectators, config.webSocketSpectatorIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops accepting connections and closes every open socket.
+     */
+    public void stop() {
+        for (ServerSocketChannel serverChannel : serverChannels) {
+            try {
+                serverChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+        router.shutdown();
+        matchManager.removeLobbyListener(lobbyFeed);
+        timer.stop();
+        for (NioEventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    /**
+     * @return the counters of the match sockets
+     */
+    public WebSocketMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Announces that a player is about to open a socket for a match.
+     *
+     * @param userID  the player's userID
+     * @param matchID the match the player belongs to
+     * @return the token the player's socket must send as its first message
+     */
+    public String expectPlayer(String userID, String matchID) {
+        return joinRegistry.register(userID, matchID);
+    }
+
+    /**
+     * Announces that a spectator is about to open a socket to watch a match.
+     *
+     * @param matchID the match to watch
+     * @return the token the spectator's socket must send as its first message
+     */
+    public String expectSpectator(String matchID) {
+        return joinRegistry.register(null, matchID);
+    }
+
+    private void removePlayerInOrder(String userID, String matchID) {
+        // Called from the timer thread, the event loops and the server monitor, none of which may wait for the match.
+        matchManager.runInOrder(matchID, () -> {
+            try {
+                matchManager.removePlayer(userID, matchID);
+            } catch (InvalidIDException e) {
+                System.out.println("Match no longer exist or player already removed.");
+            }
+        });
+    }
+
+    private void acceptConnections(ServerSocketChannel serverChannel) {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.socket().setTcpNoDelay(true);
+                NioEventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                loop.register(channel, new WebSocketConnection(channel, this, readPool, writePool, config,
+                        metrics, timer, router));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println("Failed to accept a connection.");
+            }
+        }
+    }
+
+    /**
+     * Subscribes the sockets opened on the lobby path to the {@link LobbyFeed}. Any other socket waits for its token.
+     *
+     * @param connection the new connection
+     */
+    @Override
+    public void onOpen(WebSocketConnection connection) {
+        if (!connection.getHandshake().getPath().split("\\?")[0].equals("/lobby")) {
+            return;
+        }
+        connection.setListener(new WebSocketListener() {
+            @Override
+            public void onMessage(WebSocketConnection connection, String message) {
+                // The lobby is read only.
+            }
+
+            @Override
+            public void onClose(WebSocketConnection connection) {
+                lobbyFeed.removeViewer(connection);
+            }
+        });
+        lobbyFeed.addViewer(connection);
+    }
+
+    /**
+     * Binds a new socket to the player whose join or session token is its first message.
+     *
+     * @param connection the new connection
+     * @param message    the first message, a token optionally followed by a space and the last sequence number seen
+     */
+    @Override
+    public void onMessage(WebSocketConnection connection, String message) {
+        String[] parts = message.trim().split(" ", 2);
+        long lastSeq = -1;
+        if (parts.length == 2) {
+            try {
+                lastSeq = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                connection.close();
+                return;
+            }
+        }
+        if (connection.getHandshake().getPath().split("\\?")[0].equals("/spectate")) {
+            watch(connection, parts[0]);
+            return;
+        }
+        boolean delta = "delta".equals(connection.getHandshake().getQueryParameter("mode"));
+        try {
+            PlayerSession session = resume(parts[0], connection, delta, lastSeq);
+            if (session == null) {
+                session = open(parts[0], connection, delta);
+            }
+            if (session == null) {
+                connection.close();
+                return;
+            }
+            connection.setListener(new PlayerInputListener(this, session.token, session.outputDispatcher,
+                    matchManager, session.matchID, session.userID));
+        } catch (InvalidIDException e) {
+            System.out.println("Match already started or no longer exists.");
+            connection.close();
+        }
+    }
+
+    private synchronized PlayerSession resume(String token, WebSocketConnection connection, boolean delta,
+                                              long lastSeq) {
+        PlayerSession session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        if (session.expiry != null) {
+            session.expiry.cancel();
+            session.expiry = null;
+        }
+        if (session.connection != null) {
+            // The previous socket of the player is dead but hasn't been reaped yet.
+            session.outputDispatcher.removeConnection(session.connection);
+            session.connection.close();
+        }
+        session.connection = connection;
+        session.outputDispatcher.addConnection(connection, delta, lastSeq);
+        return session;
+    }
+
+    private synchronized PlayerSession open(String token, WebSocketConnection connection, boolean delta)
+            throws InvalidIDException {
+        JoinRegistry.PendingJoin join = joinRegistry.claim(token);
+        if (join == null || join.isSpectator()) {
+            return null;
+        }
+        MatchOutputDispatcher outputDispatcher = dispatchers.get(join.matchID);
+        if (outputDispatcher == null) {
+            outputDispatcher = newDispatcher(join.matchID);
+            matchManager.addListener(outputDispatcher, join.matchID);
+            dispatchers.put(join.matchID, outputDispatcher);
+        }
+        outputDispatcher.addSeat();
+        PlayerSession session = new PlayerSession(token, join.userID, join.matchID, outputDispatcher);
+        sessions.put(token, session);
+        session.connection = connection;
+        outputDispatcher.addConnection(connection, delta, -1);
+        return session;
+    }
+
+    /**
+     * Stops broadcasting a match to a closed socket. Unless the client closed it normally, the player's seat is kept
+     * for a grace period, so that a new socket can resume the session.
+     *
+     * @param connection the closed socket
+     * @param token      the token of the player's session
+     */
+    synchronized void detach(WebSocketConnection connection, String token) {
+        PlayerSession session = sessions.get(token);
+        if (session == null || session.connection != connection) {
+            return;
+        }
+        session.outputDispatcher.removeConnection(connection);
+        session.connection = null;
+        if (connection.getPeerCloseCode() == WebSocketFrameCodec.CLOSE_NORMAL || config.webSocketResumeGraceSeconds <= 0) {
+            endSession(session);
+        } else {
+            NioEventLoop loop = connection.getLoop();
+            session.expiry = timer.newTimeout(() -> loop.execute(() -> expire(session)), config.webSocketResumeGraceSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    private synchronized void expire(PlayerSession session) {
+        if (session.connection == null && sessions.get(session.token) == session) {
+            endSession(session);
+        }
+    }
+
+    private MatchOutputDispatcher newDispatcher(String matchID) {
+        return new MatchOutputDispatcher(matchManager, matchID, writePool,
+                new PerMessageDeflate.Compressor(config.webSocketCompressionThreshold, metrics),
+                Math.min(config.webSocketResumeBufferSize, config.webSocketMaxQueuedFrames / 2), metrics,
+                () -> dropMatch(matchID));
+    }
+
+    /**
+     * Ends the sessions of an evicted match and closes the sockets of its players and spectators. Called on the
+     * thread of the match, which is gone from the match manager by then.
+     */
+    private synchronized void dropMatch(String matchID) {
+        MatchOutputDispatcher outputDispatcher = dispatchers.remove(matchID);
+        if (outputDispatcher == null) {
+            return;
+        }
+        sessions.values().removeIf(session -> {
+            if (!session.matchID.equals(matchID)) {
+                return false;
+            }
+            if (session.expiry != null) {
+                session.expiry.cancel();
+            }
+            return true;
+        });
+        outputDispatcher.close();
+    }
+
+    private void removeSeat(MatchOutputDispatcher outputDispatcher) {
+        if (!outputDispatcher.removeSeat()) {
+            return;
+        }
+        dispatchers.remove(outputDispatcher.matchID, outputDispatcher);
+        try {
+            matchManager.removeListener(outputDispatcher, outputDispatcher.matchID);
+        } catch (InvalidIDException e) {
+            System.out.println("Match no longer exists");
+        }
+        outputDispatcher.release();
+    }
+
+    private void endSession(PlayerSession session) {
+        sessions.remove(session.token);
+        removeSeat(session.outputDispatcher);
+        removePlayerInOrder(session.userID, session.matchID);
+    }
+
+    private void watch(WebSocketConnection connection, String token) {
+        JoinRegistry.PendingJoin join = joinRegistry.claimSpectator(token);
+        if (join == null) {
+            connection.close();
+            return;
+        }
+        MatchOutputDispatcher outputDispatcher;
+        try {
+            outputDispatcher = addSpectator(connection, join.matchID);
+        } catch (InvalidIDException e) {
+            System.out.println("Match already finished or no longer exists.");
+            connection.close();
+            return;
+        }
+        connection.setListener(new WebSocketListener() {
+            @Override
+            public void onMessage(WebSocketConnection connection, String message) {
+                // Spectators can't act on the match.
+            }
+
+            @Override
+            public void onBinaryMessage(WebSocketConnection connection, ByteBuffer message) {
+                // Nor in the binary protocol.
+            }
+
+            @Override
+            public void onClose(WebSocketConnection connection) {
+                removeSpectator(connection, outputDispatcher);
+            }
+        });
+    }
+
+    private synchronized MatchOutputDispatcher addSpectator(WebSocketConnection connection, String matchID)
+            throws InvalidIDException {
+        MatchOutputDispatcher outputDispatcher = dispatchers.get(matchID);
+        if (outputDispatcher == null) {
+            outputDispatcher = newDispatcher(matchID);
+            matchManager.addSpectatorListener(outputDispatcher, matchID);
+            dispatchers.put(matchID, outputDispatcher);
+        }
+        outputDispatcher.addSeat();
+        outputDispatcher.addSpectator(connection);
+        return outputDispatcher;
+    }
+
+    private synchronized void removeSpectator(WebSocketConnection connection, MatchOutputDispatcher outputDispatcher) {
+        outputDispatcher.removeSpectator(connection);
+        removeSeat(outputDispatcher);
+    }
+
+    private void flushSpectators() {
+        List<MatchOutputDispatcher> watched = new ArrayList<>();
+        synchronized (this) {
+            for (MatchOutputDispatcher outputDispatcher : dispatchers.values()) {
+                if (outputDispatcher.hasSpectators()) {
+                    watched.add(outputDispatcher);
+                }
+            }
+        }
+        // The timer thread only hands the writes out, the loops do them.
+        for (int i = 0; i < watched.size(); i++) {
+            loops[i % loops.length].execute(watched.get(i)::flushSpectators);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onClose(WebSocketConnection connection) {
+        // The socket closed before its player was identified, there is nothing to clean up.
+    }
+}
@@ -1,23 +1,24 @@
 package system.controllers;
 
-import com.sun.net.httpserver.HttpServer;
+import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
 import system.gateways.*;
 import system.use_cases.managers.*;
 import system.utilities.EmailService;
 import system.utilities.PseudoEmailComposer;
+import system.utilities.VirtualThreads;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * WordGameSystem Class
  */
 public class WordGameSystem {
 
-    private final HttpServer server;
+    private final WebSocketServer webSocketServer;
+    private final int port;
 
     /**
      * Constructor of WordGameSystem
@@ -25,40 +26,60 @@ public class WordGameSystem {
      * @throws InvalidIDException the user id responsible for this exception is not in the userManager's user list
      */
     public WordGameSystem() throws IOException, InvalidIDException {
+        ServerConfig config = ServerConfig.load();
+
+        CounterGateway counterGateway = new CounterDataMapper();
 
         GameDataGateway gameGateway = new GameDataMapper();
-        GameManager gm = new GameManager(gameGateway);
+        GameManager gm = new GameManager(gameGateway, newIdManager(counterGateway, "game", config));
 
         TemplateDataGateway templateDataGateway = new TemplateDataMapper();
-        TemplateManager tm = new TemplateManager(templateDataGateway);
+        TemplateManager tm = new TemplateManager(templateDataGateway, newIdManager(counterGateway, "template", config));
 
         UserDataGateway userGateway = new UserDataMapper();
-        UserManager um = new UserManager(userGateway);
+        UserManager um = new UserManager(userGateway, newIdManager(counterGateway, "user", config));
 
-        MatchManager mm = new MatchManager();
+        MatchManager mm = new MatchManager(config.matchThreads, config.nodeId);
+        mm.setTimeToLive(MatchStatus.PREPARING, config.matchPreparingTtlSeconds);
+        mm.setTimeToLive(MatchStatus.ONGOING, config.matchIdleTtlSeconds);
+        mm.setTimeToLive(MatchStatus.FINISHED, config.matchFinishedTtlSeconds);
 
-        GameRequestHandler gameRH = new GameRequestHandler(gm, tm, um, mm);
+        HttpRouter router = new HttpRouter(createExecutor(config));
+        webSocketServer = new WebSocketServer(mm, gm, config, router);
+        GameRequestHandler gameRH = new GameRequestHandler(gm, tm, um, mm, webSocketServer);
         TemplateRequestHandler templateRH = new TemplateRequestHandler(tm);
+        MetricsRequestHandler metricsRH = new MetricsRequestHandler(webSocketServer, mm);
 
         EmailService eService = new PseudoEmailComposer();
         UserRequestHandler userRH = new UserRequestHandler(um, gm, eService);
 
-        server = HttpServer.create(new InetSocketAddress("localhost", 8000), 20);
+        port = config.httpPort;
+        router.createContext("/game", gameRH);
+        router.createContext("/template", templateRH);
+        router.createContext("/user", userRH);
+        router.createContext("/metrics", metricsRH);
+    }
 
-        ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(10);
-        server.createContext("/game", gameRH);
-        server.createContext("/template", templateRH);
-        server.createContext("/user", userRH);
-        server.setExecutor(threadPoolExecutor);
+    private static IdManager newIdManager(CounterGateway gateway, String counter, ServerConfig config) {
+        return new IdManager(gateway, counter, config.idBlockSize, config.nodeId);
+    }
 
+    private static ExecutorService createExecutor(ServerConfig config) {
+        if ("virtual".equals(config.httpExecutionMode)) {
+            if (VirtualThreads.isSupported()) {
+                return VirtualThreads.newPerTaskExecutor();
+            }
+            System.out.println("Virtual threads need Java 21 or later, using a thread pool.");
+        }
+        return Executors.newFixedThreadPool(config.httpPoolThreads);
     }
 
     /**
      * run WorldGameSystem Helper
      */
     public void run() {
-        server.start();
-        System.out.println(" Server started on port 8000");
+        webSocketServer.start();
+        System.out.println(" Server started on port " + port);
     }
 
     /**
@@ -8,6 +8,7 @@ import shared.constants.GameGenre;
 public class HangmanTemplate extends Template {
 
     private boolean hasHints;
+    private boolean eliminateOnTimeout;
     /**
      * Hangman Template Constructor
      */
@@ -29,6 +30,7 @@ public class HangmanTemplate extends Template {
     public HangmanTemplate(HangmanTemplate template){
         super(template);
         this.hasHints = template.hasHints();
+        this.eliminateOnTimeout = template.eliminatesOnTimeout();
     }
 
     /**
@@ -45,4 +47,19 @@ public class HangmanTemplate extends Template {
     public boolean hasHints() {
         return hasHints;
     }
+
+    /**
+     * set whether a player who runs out of time is eliminated rather than skipped
+     * @param eliminateOnTimeout whether the player is eliminated
+     */
+    public void setEliminateOnTimeout(boolean eliminateOnTimeout) {
+        this.eliminateOnTimeout = eliminateOnTimeout;
+    }
+
+    /**
+     * @return whether a player who runs out of time is eliminated rather than skipped
+     */
+    public boolean eliminatesOnTimeout() {
+        return eliminateOnTimeout;
+    }
 }
@@ -11,6 +11,7 @@ import shared.exceptions.entities_exception.IDNotYetSetException;
 public abstract class Template {
     private String id;
     private String title;
+    private int turnTimeLimitSeconds;
     /**
      * Constructor of Template
      */
@@ -25,6 +26,7 @@ public abstract class Template {
     public Template(Template template){
         this.id = template.getID();
         this.title = template.getTitle();
+        this.turnTimeLimitSeconds = template.getTurnTimeLimitSeconds();
     }
 
     /**
@@ -63,6 +65,21 @@ public abstract class Template {
         return title;
     }
 
+    /**
+     * set how long a player has to play their turn, or how long a round lasts
+     * @param turnTimeLimitSeconds the time limit in seconds, or 0 for no limit
+     */
+    public void setTurnTimeLimitSeconds(int turnTimeLimitSeconds) {
+        this.turnTimeLimitSeconds = turnTimeLimitSeconds;
+    }
+
+    /**
+     * @return how long a player has to play their turn in seconds, or 0 if there is no limit
+     */
+    public int getTurnTimeLimitSeconds() {
+        return turnTimeLimitSeconds;
+    }
+
     /**
      *
      * @return the genre of the game
@@ -0,0 +1,46 @@
+package system.gateways;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CounterDataMapper Class
+ * <p>
+ * Each counter is a file holding the last value reserved. A reservation holds an exclusive lock on the file while it
+ * reads and rewrites it, which keeps other server processes out, and a lock per counter keeps the other threads of this
+ * one out, since a process can't lock a file twice. Those are ReentrantLocks rather than monitors, so a virtual thread
+ * waiting on the file doesn't pin its carrier.
+ */
+public class CounterDataMapper implements CounterGateway {
+    private final String PATH = System.getProperty("user.dir");
+    private final String COUNT_FOLDER = PATH + "/src/system/database/countFiles/";
+    private final String SUFFIX = ".txt";
+    private final ConcurrentMap<String, ReentrantLock> counterLocks = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public long reserve(String counter, int blockSize) throws IOException {
+        ReentrantLock counterLock = counterLocks.computeIfAbsent(counter, name -> new ReentrantLock());
+        counterLock.lock();
+        try (RandomAccessFile file = new RandomAccessFile(COUNT_FOLDER + counter + SUFFIX, "rw")) {
+            FileLock lock = file.getChannel().lock();
+            try {
+                String line = file.readLine();
+                long last = line == null || line.trim().isEmpty() ? 0 : Long.parseLong(line.trim());
+                file.setLength(0);
+                file.writeBytes((last + blockSize) + System.getProperty("line.separator"));
+                file.getChannel().force(false);
+                return last + 1;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            counterLock.unlock();
+        }
+    }
+}
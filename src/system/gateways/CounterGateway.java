@@ -0,0 +1,21 @@
+package system.gateways;
+
+import java.io.IOException;
+
+/**
+ * CounterGateway Interface
+ */
+public interface CounterGateway {
+
+    /**
+     * Reserves the next block of values of a durable counter.
+     * <p>
+     * A counter only moves forward, so a value is reserved at most once, even by server processes sharing the database.
+     *
+     * @param counter   the name of the counter
+     * @param blockSize the number of values to reserve
+     * @return the first value of the block, which is followed by the blockSize - 1 other values
+     * @throws IOException if there is a problem reading from or saving to the database
+     */
+    long reserve(String counter, int blockSize) throws IOException;
+}
@@ -13,7 +13,7 @@ import java.util.Set;
 public interface GameDataGateway {
 
     /**
-     * Adds the input game to the database and increments the game count by 1.
+     * Adds the input game to the database.
      *
      * @param game the game to add
      * @throws IOException if there is a problem saving to the database
@@ -44,14 +44,4 @@ public interface GameDataGateway {
      * @throws IOException if there is a problem reading from the database
      */
     Set<Game> getAllGames() throws IOException;
-
-    /**
-     * Get the count of Game objects ever created by the program.
-     * <p>
-     * This number does not decrease when a game is deleted.
-     *
-     * @return the count of stored games
-     * @throws IOException if there is a problem reading from the database
-     */
-    int getGameCount() throws IOException;
 }
@@ -5,6 +5,7 @@ import com.google.gson.*;
 import system.entities.game.Game;
 import system.entities.game.hangman.HangmanGame;
 import system.entities.game.quiz.QuizGame;
+import system.utilities.json.SharedGson;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -17,16 +18,15 @@ import java.lang.String;
 public class GameDataMapper implements GameDataGateway {
     private final String PATH = System.getProperty("user.dir");
     private final String GAME_FOLDER = PATH + "/src/system/database/games/";
-    private final File GAME_COUNT_FILE = new File(PATH + "/src/system/database/countFiles/game.txt");
     private final String[] SUBFOLDERS = {"quiz/", "hangman/"};
     private final String SUFFIX = ".json";
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson gson = SharedGson.pretty();
 
     /**
      * {@inheritDoc}
      */
     public void addGame(Game game) throws IOException {
-        addGame(game, true);
+        writeGame(game);
     }
 
     /**
@@ -34,7 +34,7 @@ public class GameDataMapper implements GameDataGateway {
      */
     public void updateGame(Game game) throws IOException {
         deleteGame(game.getID());
-        addGame(game, false);
+        writeGame(game);
     }
 
     /**
@@ -71,15 +71,7 @@ public class GameDataMapper implements GameDataGateway {
         return games;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public int getGameCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(GAME_COUNT_FILE));
-        return new Integer(rd.readLine());
-    }
-
-    private void addGame(Game game, boolean increment) throws IOException {
+    private void writeGame(Game game) throws IOException {
         String subfolder;
         if (game instanceof QuizGame) {
             subfolder = SUBFOLDERS[0];
@@ -93,20 +85,6 @@ public class GameDataMapper implements GameDataGateway {
         Writer wr = new FileWriter(gameFile);
         wr.write(gameToJson(game));
         wr.close();
-
-        if (increment) {
-            incrementGameCount();
-        }
-    }
-
-    private void incrementGameCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(GAME_COUNT_FILE));
-        int count = Integer.parseInt(rd.readLine()) + 1;
-        rd.close();
-
-        Writer wr = new FileWriter(GAME_COUNT_FILE, false);
-        wr.write(count + System.getProperty("line.separator"));
-        wr.close();
     }
 
     private String gameToJson(Game game) {
@@ -10,7 +10,7 @@ import java.util.Set;
  */
 public interface TemplateDataGateway {
     /**
-     * Adds a template to the database and increments the template count by 1.
+     * Adds a template to the database.
      *
      * @param template the template to add
      * @throws IOException if there is a problem saving to the database
@@ -40,14 +40,4 @@ public interface TemplateDataGateway {
      * @throws IOException if there is a problem reading from the database
      */
     Set<Template> getAllTemplates() throws IOException;
-
-    /**
-     * Returns the total number of templates ever created by the program.
-     * <p>
-     * This number does not decrease when a template is deleted.
-     *
-     * @return the total number of templates ever created
-     * @throws IOException if there is a problem reading from the database
-     */
-    int getTemplateCount() throws IOException;
 }
@@ -1,8 +1,8 @@
 package system.gateways;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import system.entities.template.*;
+import system.utilities.json.SharedGson;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -16,16 +16,15 @@ import java.util.Set;
 public class TemplateDataMapper implements TemplateDataGateway {
     private final String PATH = System.getProperty("user.dir");
     private final String TEMPLATE_FOLDER = PATH + "/src/system/database/templates/";
-    private final File TEMPLATE_COUNT_FILE = new File(PATH + "/src/system/database/countFiles/template.txt");
     private final String[] SUBFOLDERS = {"quiz/", "hangman/"};
     private final String SUFFIX = ".json";
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson gson = SharedGson.pretty();
 
     /**
      * {@inheritDoc}
      */
     public void addTemplate(Template template) throws IOException {
-        addTemplate(template, true);
+        writeTemplate(template);
     }
 
     /**
@@ -33,7 +32,7 @@ public class TemplateDataMapper implements TemplateDataGateway {
      */
     public void updateTemplate(Template template) throws IOException {
         deleteTemplate(template.getID());
-        addTemplate(template, false);
+        writeTemplate(template);
     }
 
     /**
@@ -70,15 +69,7 @@ public class TemplateDataMapper implements TemplateDataGateway {
         return templates;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public int getTemplateCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(TEMPLATE_COUNT_FILE));
-        return new Integer(rd.readLine());
-    }
-
-    private void addTemplate(Template template, boolean increment) throws IOException {
+    private void writeTemplate(Template template) throws IOException {
         String subfolder;
         if (template instanceof QuizTemplate) {
             subfolder = SUBFOLDERS[0];
@@ -92,20 +83,6 @@ public class TemplateDataMapper implements TemplateDataGateway {
         Writer wr = new FileWriter(templateFile);
         wr.write(templateToJson(template));
         wr.close();
-
-        if (increment) {
-            incrementTemplateCount();
-        }
-    }
-
-    private void incrementTemplateCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(TEMPLATE_COUNT_FILE));
-        int count = Integer.parseInt(rd.readLine()) + 1;
-        rd.close();
-
-        Writer wr = new FileWriter(TEMPLATE_COUNT_FILE, false);
-        wr.write(count + System.getProperty("line.separator"));
-        wr.close();
     }
 
     private String templateToJson(Template template) {
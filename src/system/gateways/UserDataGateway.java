@@ -12,7 +12,7 @@ import java.util.Set;
 public interface UserDataGateway {
 
     /**
-     * Adds the input user to the database and increments the user count by 1.
+     * Adds the input user to the database.
      *
      * @param user the user to add
      * @throws IOException if there is a problem saving to the database
@@ -43,20 +43,4 @@ public interface UserDataGateway {
      * @throws IOException if there is a problem reading from the database
      */
     Set<User> getAllUsers() throws IOException;
-
-    /**
-     * Returns the total number of users ever created by the program.
-     * <p>
-     * This number does not decrease when a user is deleted.
-     *
-     * @return the total number of users ever created
-     * @throws IOException if there is a problem reading from the database
-     */
-    int getUserCount() throws IOException;
-
-    /**
-     * Increases the number of users created by 1
-     * @throws IOException if there is a problem reading from the database
-     */
-    void incrementUserCount() throws IOException;
 }
@@ -1,10 +1,10 @@
 package system.gateways;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import shared.constants.IDType;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
 import system.entities.User;
+import system.utilities.json.SharedGson;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -16,15 +16,14 @@ import java.util.*;
 public class UserDataMapper implements UserDataGateway {
     private final String PATH = System.getProperty("user.dir");
     private final String USER_FOLDER = PATH + "/src/system/database/users/";
-    private final File USER_COUNT_FILE = new File(PATH + "/src/system/database/countFiles/user.txt");
     private final String SUFFIX = ".json";
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final Gson gson = SharedGson.pretty();
 
     /**
      * {@inheritDoc}
      */
     public void addUser(User user) throws IOException {
-        addUser(user, true);
+        writeUser(user);
     }
 
     /**
@@ -46,7 +45,7 @@ public class UserDataMapper implements UserDataGateway {
         } catch (IOException e) {
             throw new InvalidIDException(IDType.USER);
         }
-        addUser(user, false);
+        writeUser(user);
     }
 
     /**
@@ -65,36 +64,11 @@ public class UserDataMapper implements UserDataGateway {
         return users;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public int getUserCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(USER_COUNT_FILE));
-        return new Integer(rd.readLine());
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public void incrementUserCount() throws IOException {
-        BufferedReader rd = new BufferedReader(new FileReader(USER_COUNT_FILE));
-        int count = Integer.parseInt(rd.readLine()) + 1;
-        rd.close();
-
-        Writer wr = new FileWriter(USER_COUNT_FILE, false);
-        wr.write(count + System.getProperty("line.separator"));
-        wr.close();
-    }
-
-    private void addUser(User user, boolean increment) throws IOException {
+    private void writeUser(User user) throws IOException {
         File userFile = new File(USER_FOLDER + user.getUserId() + SUFFIX);
         Writer wr = new FileWriter(userFile);
         wr.write(userToJson(user));
         wr.close();
-
-        if (increment) {
-            incrementUserCount();
-        }
     }
 
     private User jsonToUser(String userString) {
@@ -40,6 +40,12 @@ public class HangmanTemplateEditor extends TemplateEditor {
             case "hasHints":
                 editHasHints(value);
                 break;
+            case "turnTimeLimitSeconds":
+                editTurnTimeLimit(value);
+                break;
+            case "eliminateOnTimeout":
+                editEliminateOnTimeout(value);
+                break;
             default:
                 throw new InvalidInputException();
         }
@@ -52,6 +58,12 @@ public class HangmanTemplateEditor extends TemplateEditor {
         template.setHasHints(Boolean.parseBoolean(value));
     }
 
+    private void editEliminateOnTimeout(String value) throws InvalidInputException {
+        if (!value.equals("true") && !value.equals("false"))
+            throw new InvalidInputException();
+        template.setEliminateOnTimeout(Boolean.parseBoolean(value));
+    }
+
     private void editTitle(String value) {
         template.setTitle(value);
     }
@@ -52,6 +52,9 @@ public class QuizTemplateEditor extends TemplateEditor {
                 break;
             case "hasScoreWeight":
                 break;
+            case "turnTimeLimitSeconds":
+                editTurnTimeLimit(value);
+                break;
             default:
                 throw new InvalidInputException();
         }
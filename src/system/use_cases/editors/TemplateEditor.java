@@ -13,6 +13,8 @@ import java.util.Map;
  */
 public abstract class TemplateEditor {
 
+    private static final int MAX_TURN_TIME_LIMIT_SECONDS = 3600;
+
     /**
      * @return the template that this editor is holding.
      */
@@ -27,6 +29,23 @@ public abstract class TemplateEditor {
     public abstract void editAttribute(@NotNull String attributeName, @NotNull String value)
             throws InvalidInputException;
 
+    /**
+     * Sets the time limit of the turns of the current template.
+     * @param value the string representation of the limit in seconds, 0 for no limit
+     * @throws InvalidInputException when the value isn't a whole number of seconds up to an hour
+     * */
+    protected void editTurnTimeLimit(String value) throws InvalidInputException {
+        int seconds;
+        try {
+            seconds = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException();
+        }
+        if (seconds < 0 || seconds > MAX_TURN_TIME_LIMIT_SECONDS)
+            throw new InvalidInputException();
+        getTemplate().setTurnTimeLimitSeconds(seconds);
+    }
+
     /**
      * @return a mapping of attribute names to string representations of attribute values.
      * */
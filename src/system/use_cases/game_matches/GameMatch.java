@@ -1,24 +1,48 @@
 package system.use_cases.game_matches;
 
+import shared.DTOs.sockets.MatchOutput;
+import shared.constants.MatchEventType;
 import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.DuplicateUserIDException;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
 import shared.exceptions.use_case_exceptions.InvalidInputException;
 import shared.exceptions.use_case_exceptions.MaxPlayerReachedException;
+import system.utilities.HashedWheelTimer;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Observable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract GameMatch Class
+ * <p>
+ * Every change of a match is published as a {@link MatchEvent} to its {@link MatchListener}s. The listeners are kept in
+ * a copy-on-write array, so publishing takes no lock, and they are called through the event executor of the match,
+ * after the change has returned, so the game logic never waits on them.
+ * <p>
+ * The output carried by the last event is kept as well, even when nobody listens, so other threads can read the state of
+ * the match through {@link #getPublishedOutput()} without touching the match while its thread changes it.
+ * <p>
+ * A turn can be given a deadline on the turn timer. The timeout is handed to the event executor like any other change,
+ * and is dropped if the turn it was started for is over by the time it runs.
  */
-public abstract class GameMatch extends Observable {
+public abstract class GameMatch {
 
     private final String id;
     private final String hostID;
     private final String hostName;
     private MatchStatus status;
     private int playerLimit;
+    private final List<MatchListener> listeners;
+    private Executor eventExecutor;
+    private HashedWheelTimer turnTimer;
+    private HashedWheelTimer.Timeout turnTimeout;
+    private Object turn;
+    private long turnDeadline;
+    private volatile MatchOutput publishedOutput;
 
     /**
      * Constructor of GameMatch
@@ -33,6 +57,138 @@ public abstract class GameMatch extends Observable {
         this.status = MatchStatus.PREPARING;
         this.playerLimit = playerLimit;
         this.hostName = username;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.eventExecutor = Runnable::run;
+    }
+
+    /**
+     * Sets the executor the listeners are called through. Until it is set, they are called right away.
+     *
+     * @param eventExecutor an executor that runs the tasks of this match in order, after the change that queued them
+     */
+    public void setEventExecutor(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+    }
+
+    /**
+     * Sets the timer the deadlines of the turns are kept on. Until it is set, turns have no deadline.
+     *
+     * @param turnTimer a timer shared by every match
+     */
+    public void setTurnTimer(HashedWheelTimer turnTimer) {
+        this.turnTimer = turnTimer;
+    }
+
+    /**
+     * Gives the current turn a deadline, replacing the deadline of the previous turn.
+     *
+     * @param seconds the time the turn lasts, or 0 for no deadline
+     */
+    protected void startTurnTimer(int seconds) {
+        cancelTurnTimer();
+        if (turnTimer == null || seconds <= 0) {
+            return;
+        }
+        Object current = new Object();
+        turn = current;
+        turnDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        turnTimeout = turnTimer.newTimeout(() -> eventExecutor.execute(() -> {
+            if (turn == current && status == MatchStatus.ONGOING) {
+                turn = null;
+                turnDeadline = 0;
+                onTurnTimeout();
+            }
+        }), seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Takes the deadline off the current turn.
+     */
+    public void cancelTurnTimer() {
+        if (turnTimeout != null) {
+            turnTimeout.cancel();
+            turnTimeout = null;
+        }
+        turn = null;
+        turnDeadline = 0;
+    }
+
+    /**
+     * Stops the turn timer and tells the listeners that the match was dropped from the server.
+     */
+    public void evict() {
+        cancelTurnTimer();
+        publish(MatchEventType.EVICTED, null);
+    }
+
+    /**
+     * Called on the event executor when the current turn runs out of time.
+     */
+    protected abstract void onTurnTimeout();
+
+    /**
+     * @param listener the listener to add
+     */
+    public void addListener(MatchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeListener(MatchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes a change of the match to its listeners, with the output of the match as it is now.
+     *
+     * @param type     the kind of change
+     * @param playerID the ID of the player who caused the change, or null
+     */
+    protected void publish(MatchEventType type, String playerID) {
+        MatchOutput output = getOutput();
+        publishedOutput = output;
+        if (listeners.isEmpty()) {
+            return;
+        }
+        MatchEvent event = new MatchEvent(type, id, playerID, output);
+        eventExecutor.execute(() -> {
+            for (MatchListener listener : listeners) {
+                listener.onMatchEvent(event);
+            }
+        });
+    }
+
+    /**
+     * Records the output of the match as it is now, without telling the listeners. It is called once the match is set
+     * up, before other threads can see it, and every published change records it again.
+     */
+    public void recordOutput() {
+        publishedOutput = getOutput();
+    }
+
+    /**
+     * Returns the output of the match as of its last published change. Unlike the other getters of the state of the
+     * match, it can be called from any thread.
+     * @return the output of the match, or null if it was never recorded
+     */
+    public MatchOutput getPublishedOutput() {
+        return publishedOutput;
+    }
+
+    /**
+     * Returns everything the players of this match see.
+     * @return the output of the match
+     */
+    public MatchOutput getOutput() {
+        MatchOutput output = new MatchOutput();
+        output.status = status;
+        output.textContent = getTextContent();
+        output.numPlayers = getPlayerCount();
+        output.playerStats = status == MatchStatus.PREPARING ? new HashMap<>() : getAllPlayerStats();
+        output.turnTimeLeftMillis = turnDeadline == 0 ? 0 : Math.max(0, turnDeadline - System.currentTimeMillis());
+        return output;
     }
 
     /**
@@ -115,12 +271,20 @@ public abstract class GameMatch extends Observable {
     public abstract void startMatch();
 
     /**
-     * Change the match status to the input
+     * Change the match status to the input, publishing the start or the end of the match.
      *
      * @param status the new status
      */
     public void setStatus(MatchStatus status) {
         this.status = status;
+        if (status == MatchStatus.FINISHED) {
+            cancelTurnTimer();
+        }
+        if (status == MatchStatus.ONGOING) {
+            publish(MatchEventType.STARTED, null);
+        } else if (status == MatchStatus.FINISHED) {
+            publish(MatchEventType.FINISHED, null);
+        }
     }
 
     /**
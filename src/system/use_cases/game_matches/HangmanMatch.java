@@ -3,37 +3,48 @@ package system.use_cases.game_matches;
 import java.lang.String;
 
 import shared.constants.IDType;
+import shared.constants.MatchEventType;
 import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.*;
 import system.entities.game.hangman.HangmanGame;
 import system.entities.template.HangmanTemplate;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * HangmanMatch Class
+ * <p>
+ * A guess is one of 36 characters, a digit or a case insensitive letter, so the guessed characters are kept as the bits
+ * of a long. Every puzzle is indexed once when it is loaded, from each character to its positions in the answer, and a
+ * count of the hidden characters tells whether it is solved. Players are kept in slots, and their stats in arrays
+ * indexed by slot. Playing a move is therefore constant time, and allocates nothing but the output text.
  */
 public class HangmanMatch extends GameMatch {
 
     private final static int PLAYER_LIMIT = 4; //maximum allowed players
+    private final static int CHARACTERS = 36; //digits, then letters
+    private final static char HIDDEN = '_';
     private HangmanGame game;
     private HangmanTemplate template;
 
     private int currentPuzzleIndex;
     private char[] currentAnswer;
     private char[] gameState;
-    private List<Character> mistakes;
-    private List<Character> guesses;
+    private final int[][] positions;
+    private int hiddenCount;
+    private long guessed;
+    private final char[] mistakes;
+    private int mistakeCount;
     private String output;
 
-    private List<String> players;
-    private List<String> livingPlayers;
-    private Map<String, String> playerNames;
-    private Map<String, Integer> scores;
-    private Map<String, Integer> remainingLives;
-    private Map<String, Integer> remainingHints;
-    private String activePlayerId;
+    private final String[] playerIds;
+    private final String[] playerNames;
+    private final int[] scores;
+    private final int[] remainingLives;
+    private final int[] remainingHints;
+    private final boolean[] living;
+    private int activeSlot;
 
     private enum MoveType {HINT, INVALID, USED, NORMAL}
 
@@ -49,14 +60,15 @@ public class HangmanMatch extends GameMatch {
         super(matchID, userID, username, PLAYER_LIMIT);
         this.template = template;
         this.game = game;
-        this.guesses = new ArrayList<>();
-        this.mistakes = new ArrayList<>();
+        this.positions = new int[CHARACTERS][];
+        this.mistakes = new char[CHARACTERS];
 
-        players = new ArrayList<>();
-        playerNames = new HashMap<>();
-        scores = new HashMap<>();
-        remainingLives = new HashMap<>();
-        remainingHints = new HashMap<>();
+        playerIds = new String[PLAYER_LIMIT];
+        playerNames = new String[PLAYER_LIMIT];
+        scores = new int[PLAYER_LIMIT];
+        remainingLives = new int[PLAYER_LIMIT];
+        remainingHints = new int[PLAYER_LIMIT];
+        living = new boolean[PLAYER_LIMIT];
 
         try {
             addPlayer(userID, username);
@@ -67,8 +79,6 @@ public class HangmanMatch extends GameMatch {
         this.currentPuzzleIndex = 0;
         this.loadPuzzle();
         output = this.simpleOutput();
-        setChanged();
-        notifyObservers();
     }
 
     /**
@@ -89,21 +99,24 @@ public class HangmanMatch extends GameMatch {
     public Map<String, String> getAllPlayerStats() {
         Map<String, String> playerStatusMap = new HashMap<>();
         StringBuilder s = new StringBuilder();
-        for (String playerId : players) {
-            if (playerId.equals(activePlayerId)) {
+        for (int slot = 0; slot < PLAYER_LIMIT; slot++) {
+            if (playerIds[slot] == null) {
+                continue;
+            }
+            if (slot == activeSlot) {
                 s.append("Active Player! ");
-            } else if (!livingPlayers.contains(playerId)) {
+            } else if (!living[slot]) {
                 s.append("Eliminated. ");
             } else {
                 s.append("Waiting... ");
             }
             s.append("score: ");
-            s.append(scores.get(playerId));
+            s.append(scores[slot]);
             s.append(", lives: ");
-            s.append(remainingLives.get(playerId));
+            s.append(remainingLives[slot]);
             s.append(", hints: ");
-            s.append(remainingHints.get(playerId));
-            playerStatusMap.put(playerNames.get(playerId), s.toString());
+            s.append(remainingHints[slot]);
+            playerStatusMap.put(playerNames[slot], s.toString());
             s.setLength(0);
         }
         return playerStatusMap;
@@ -114,7 +127,13 @@ public class HangmanMatch extends GameMatch {
      */
     @Override
     public int getPlayerCount() {
-        return players.size();
+        int count = 0;
+        for (String playerId : playerIds) {
+            if (playerId != null) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
@@ -131,47 +150,67 @@ public class HangmanMatch extends GameMatch {
     @Override
     public void startMatch() {
         if (getStatus() == MatchStatus.PREPARING) {
-            livingPlayers = new ArrayList<>();
-            livingPlayers.addAll(players);
-            activePlayerId = players.get(0);
+            activeSlot = -1;
+            for (int slot = 0; slot < PLAYER_LIMIT; slot++) {
+                living[slot] = playerIds[slot] != null;
+                if (living[slot] && activeSlot < 0) {
+                    activeSlot = slot;
+                }
+            }
+            startTurnTimer(template.getTurnTimeLimitSeconds());
             setStatus(MatchStatus.ONGOING);
-            setChanged();
-            notifyObservers();
         }
     }
 
     /**
+     * Takes the first free slot, so the turns go in the order of the slots.
+     *
      * {@inheritDoc}
      */
     @Override
     public void addPlayer(String playerID, String playerName) throws DuplicateUserIDException, MaxPlayerReachedException {
-        if (players.contains(playerID)) {
+        if (slotOf(playerID) >= 0) {
             throw new DuplicateUserIDException();
         } else if (getPlayerCount() >= getPlayerLimit()) {
             throw new MaxPlayerReachedException();
         } else {
-            players.add(playerID);
-            playerNames.put(playerID, playerName);
-            scores.put(playerID, 0);
-            remainingLives.put(playerID, game.getNumLives());
-            remainingHints.put(playerID, game.getNumHints());
-            setChanged();
-            notifyObservers();
+            int slot = 0;
+            while (playerIds[slot] != null) {
+                slot++;
+            }
+            playerIds[slot] = playerID;
+            playerNames[slot] = playerName;
+            scores[slot] = 0;
+            remainingLives[slot] = game.getNumLives();
+            remainingHints[slot] = game.getNumHints();
+            publish(MatchEventType.PLAYER_JOINED, playerID);
         }
     }
 
     /**
+     * A player leaving on their turn passes it to the next living player, and the match ends if nobody is left alive.
+     *
      * {@inheritDoc}
      */
     @Override
     public void removePlayer(String playerID) throws InvalidIDException {
-        if (players.contains(playerID)) {
-            players.remove(playerID);
-            setChanged();
-            notifyObservers();
-        } else {
+        int slot = slotOf(playerID);
+        if (slot < 0) {
             throw new InvalidIDException(IDType.USER);
         }
+        playerIds[slot] = null;
+        living[slot] = false;
+        publish(MatchEventType.PLAYER_LEFT, playerID);
+        if (getStatus() != MatchStatus.ONGOING || slot != activeSlot) {
+            return;
+        }
+        if (!anyLiving()) {
+            generateOutput(playerNames[slot] + " left the match. Everybody's dead!\n" + getEndingMessage());
+            setStatus(MatchStatus.FINISHED);
+        } else {
+            generateOutput(playerNames[slot] + " left the match. Turn skipped.");
+            nextActivePlayer();
+        }
     }
 
     /**
@@ -186,52 +225,91 @@ public class HangmanMatch extends GameMatch {
     @Override
     public void playMove(String PlayerID, String move) {
         if (getStatus() == MatchStatus.PREPARING) {
-            setChanged();
-            notifyObservers();
             return;
         }
 
-        if (activePlayerId.equals(PlayerID)) {
-            char moveChar = Character.toLowerCase(move.charAt(0));
+        if (PlayerID.equals(playerIds[activeSlot])) {
+            char moveChar = move.isEmpty() ? ' ' : Character.toLowerCase(move.charAt(0));
             switch (parseMove(move)) {
                 case INVALID:
-                    generateOutput(playerNames.get(activePlayerId) + "'s guess '" + moveChar + "' is invalid. Try again.");
+                    generateOutput(playerNames[activeSlot] + "'s guess '" + moveChar + "' is invalid. Try again.");
                     return;
                 case USED:
-                    generateOutput(playerNames.get(activePlayerId) + "'s guess '" + moveChar + "' already guessed. Try again.");
+                    generateOutput(playerNames[activeSlot] + "'s guess '" + moveChar + "' already guessed. Try again.");
                     return;
                 case HINT:
-                    if (remainingHints.get(PlayerID) > 0) {
-                        remainingHints.put(PlayerID, remainingHints.get(PlayerID) - 1);
-                        guessChar(getHint(), PlayerID, MoveType.HINT);
+                    if (remainingHints[activeSlot] > 0) {
+                        remainingHints[activeSlot]--;
+                        guessChar(getHint(), MoveType.HINT);
                     } else {
-                        generateOutput(playerNames.get(activePlayerId) + " has no more hints. Try again.");
+                        generateOutput(playerNames[activeSlot] + " has no more hints. Try again.");
                     }
                     return;
                 case NORMAL:
-                    guessChar(moveChar, PlayerID, MoveType.NORMAL);
+                    guessChar(moveChar, MoveType.NORMAL);
                     return;
             }
         }
     }
 
-    private MoveType parseMove(String move) {
-        char moveChar = Character.toLowerCase(move.charAt(0));
+    /**
+     * The active player is skipped, or eliminated if the template says so.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onTurnTimeout() {
+        if (!template.eliminatesOnTimeout()) {
+            generateOutput(playerNames[activeSlot] + " ran out of time. Turn skipped.");
+            nextActivePlayer();
+            return;
+        }
+        remainingLives[activeSlot] = 0;
+        living[activeSlot] = false;
+        if (!anyLiving()) {
+            generateOutput(playerNames[activeSlot] + " ran out of time. Everybody's dead!\n" + getEndingMessage());
+            setStatus(MatchStatus.FINISHED);
+        } else {
+            generateOutput(playerNames[activeSlot] + " ran out of time. Player eliminated!");
+            nextActivePlayer();
+        }
+    }
 
-        if (Pattern.matches(".*hint.*", move.toLowerCase())) {
+    private MoveType parseMove(String move) {
+        if (containsHint(move)) {
             return MoveType.HINT;
-        } else if (!Pattern.matches("[a-zA-Z0-9]", move.substring(0, 1))) {
+        } else if (move.isEmpty() || characterOf(move.charAt(0)) < 0) {
             return MoveType.INVALID;
-        } else if (guesses.contains(moveChar)) {
+        } else if ((guessed & 1L << characterOf(move.charAt(0))) != 0) {
             return MoveType.USED;
         }
         return MoveType.NORMAL;
     }
 
-    // searches the current puzzle for the input char. deducts a life if nothing is found
+    private static boolean containsHint(String move) {
+        for (int i = 0; i + 4 <= move.length(); i++) {
+            if (move.regionMatches(true, i, "hint", 0, 4)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the index of an alphanumeric character among the 36 guessable ones, or -1 for any other character
+    private static int characterOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    // uncovers the input char in the current puzzle. deducts a life if nothing is found
     // also updates the next active player
-    private void guessChar(char moveChar, String playerID, MoveType type) {
-        guesses.add(moveChar);
+    private void guessChar(char moveChar, MoveType type) {
         int found = findAndRevealChar(moveChar);
 
         if (type == MoveType.HINT) {    //if a hint was used
@@ -244,38 +322,38 @@ public class HangmanMatch extends GameMatch {
     }
 
     private void handleGuessNotFoundCase(char moveChar) {
-        mistakes.add(moveChar);
-        remainingLives.put(activePlayerId, remainingLives.get(activePlayerId) - 1);
-        if (remainingLives.get(activePlayerId) == 0) {
-            livingPlayers.remove(activePlayerId);
-            if (livingPlayers.isEmpty()) {
-                generateOutput(playerNames.get(activePlayerId) + " guessed '" + moveChar + "' and missed. Everybody's dead!\n" + getEndingMessage());
+        mistakes[mistakeCount++] = moveChar;
+        remainingLives[activeSlot]--;
+        if (remainingLives[activeSlot] == 0) {
+            living[activeSlot] = false;
+            if (!anyLiving()) {
+                generateOutput(playerNames[activeSlot] + " guessed '" + moveChar + "' and missed. Everybody's dead!\n" + getEndingMessage());
                 setStatus(MatchStatus.FINISHED);
             } else {
-                generateOutput(playerNames.get(activePlayerId) + "'s guess '" + moveChar + "' not found. Player eliminated!");
-                nextActivePlayer(activePlayerId);
+                generateOutput(playerNames[activeSlot] + "'s guess '" + moveChar + "' not found. Player eliminated!");
+                nextActivePlayer();
             }
         } else {
-            generateOutput(playerNames.get(activePlayerId) + "'s guess '" + moveChar + "' not found. They lose 1 life.");
-            nextActivePlayer(activePlayerId);
+            generateOutput(playerNames[activeSlot] + "'s guess '" + moveChar + "' not found. They lose 1 life.");
+            nextActivePlayer();
         }
     }
 
     private void handleGuessFoundCase(int found, char moveChar) {
-        scores.put(activePlayerId, scores.get(activePlayerId) + found);
+        scores[activeSlot] += found;
         if (this.isPuzzleSolved()) {
             if (this.hasNextPuzzle()) {
                 currentPuzzleIndex++;
                 this.loadPuzzle();
-                generateOutput(playerNames.get(activePlayerId) + " guessed '" + moveChar + "' and solved the puzzle!");
-                nextActivePlayer(activePlayerId);
+                generateOutput(playerNames[activeSlot] + " guessed '" + moveChar + "' and solved the puzzle!");
+                nextActivePlayer();
             } else {
-                generateOutput(playerNames.get(activePlayerId) + " guessed '" + moveChar + "' and solved the last puzzle!\n" + getEndingMessage());
+                generateOutput(playerNames[activeSlot] + " guessed '" + moveChar + "' and solved the last puzzle!\n" + getEndingMessage());
                 setStatus(MatchStatus.FINISHED);
             }
         } else {
-            generateOutput(playerNames.get(activePlayerId) + " guessed '" + moveChar + "' and earned + " + found + " points!");
-            nextActivePlayer(activePlayerId);
+            generateOutput(playerNames[activeSlot] + " guessed '" + moveChar + "' and earned + " + found + " points!");
+            nextActivePlayer();
         }
     }
 
@@ -284,57 +362,45 @@ public class HangmanMatch extends GameMatch {
             if (this.hasNextPuzzle()) {
                 currentPuzzleIndex++;
                 this.loadPuzzle();
-                generateOutput(playerNames.get(activePlayerId) + " used a hint! Uncovered" + found + " '" + moveChar + "'. Go again.");
+                generateOutput(playerNames[activeSlot] + " used a hint! Uncovered" + found + " '" + moveChar + "'. Go again.");
             } else {
-                generateOutput(playerNames.get(activePlayerId) + " used a hint! Uncovered" + found + " '" + moveChar + "'. Last puzzle solved!\n" + getEndingMessage());
+                generateOutput(playerNames[activeSlot] + " used a hint! Uncovered" + found + " '" + moveChar + "'. Last puzzle solved!\n" + getEndingMessage());
                 setStatus(MatchStatus.FINISHED);
             }
         } else {
-            generateOutput(playerNames.get(activePlayerId) + " used a hint! Uncovered " + found + " '" + moveChar + "'. Go again.");
+            generateOutput(playerNames[activeSlot] + " used a hint! Uncovered " + found + " '" + moveChar + "'. Go again.");
         }
     }
 
-    // searches the current puzzle for the input char (not case sensitive)
-    // uncovers any that are found, and returns the amount of uncovered letters.
+    // marks the input char (not case sensitive) as guessed and uncovers it in the current puzzle
+    // returns the amount of uncovered letters.
     private int findAndRevealChar(char c) {
-        int found = 0;
-        if (c >= '0' && c <= '9') {  // 0-9
-            for (int i = 0; i < this.currentAnswer.length; i++) {
-                if (this.currentAnswer[i] == c) {
-                    this.gameState[i] = this.currentAnswer[i];
-                    found++;
-                }
-            }
-        } else if (c >= 'a' && c <= 'z') {  // a-z
-            for (int i = 0; i < this.currentAnswer.length; i++) {
-                if (this.currentAnswer[i] == c | this.currentAnswer[i] == c - 32) { //treat 'a' and 'A' as the same
-                    this.gameState[i] = this.currentAnswer[i];
-                    found++;
-                }
-            }
+        int character = characterOf(c);
+        guessed |= 1L << character;
+        int[] found = positions[character];
+        for (int position : found) {
+            gameState[position] = currentAnswer[position];
         }
-        return found;
+        hiddenCount -= found.length;
+        return found.length;
     }
 
-    //returns a hidden letter in the current puzzle
+    //returns a hidden letter in the current puzzle, each hidden position being as likely
     private char getHint() {
-        List<Character> remaining = new ArrayList<>();
-        for (int i = 0; i < gameState.length; i++) {
-            if (gameState[i] == '_') {
-                remaining.add(currentAnswer[i]);
+        int remaining = ThreadLocalRandom.current().nextInt(hiddenCount);
+        for (int character = 0; character < CHARACTERS; character++) {
+            if ((guessed & 1L << character) == 0) {
+                remaining -= positions[character].length;
+                if (remaining < 0) {
+                    return Character.toLowerCase(currentAnswer[positions[character][0]]);
+                }
             }
         }
-        Collections.shuffle(remaining);
-        return Character.toLowerCase(remaining.get(0));
+        throw new IllegalStateException("No hidden character left");
     }
 
     private boolean isPuzzleSolved() {
-        for (int i = 0; i < currentAnswer.length; i++) {
-            if (currentAnswer[i] != gameState[i]) {
-                return false;
-            }
-        }
-        return true;
+        return hiddenCount == 0;
     }
 
     private boolean hasNextPuzzle() {
@@ -342,66 +408,105 @@ public class HangmanMatch extends GameMatch {
     }
 
     private void loadPuzzle() {
-        mistakes.clear();
-        guesses.clear();
-        String answerString = game.getAnswer(currentPuzzleIndex);
-        currentAnswer = answerString.toCharArray();
-        String gameStateString = answerString.replaceAll("[a-zA-Z0-9]", "_");
-        gameState = gameStateString.toCharArray();
+        mistakeCount = 0;
+        guessed = 0;
+        currentAnswer = game.getAnswer(currentPuzzleIndex).toCharArray();
+        gameState = currentAnswer.clone();
+        hiddenCount = 0;
+
+        int[] counts = new int[CHARACTERS];
+        for (char c : currentAnswer) {
+            int character = characterOf(c);
+            if (character >= 0) {
+                counts[character]++;
+            }
+        }
+        for (int character = 0; character < CHARACTERS; character++) {
+            positions[character] = new int[counts[character]];
+            counts[character] = 0;
+        }
+        for (int i = 0; i < currentAnswer.length; i++) {
+            int character = characterOf(currentAnswer[i]);
+            if (character >= 0) {
+                positions[character][counts[character]++] = i;
+                gameState[i] = HIDDEN;
+                hiddenCount++;
+            }
+        }
     }
 
     private String simpleOutput() {
+        StringBuilder misses = new StringBuilder("[");
+        for (int i = 0; i < mistakeCount; i++) {
+            if (i > 0) {
+                misses.append(", ");
+            }
+            misses.append(mistakes[i]);
+        }
+        misses.append(']');
         return "Puzzle " + (currentPuzzleIndex + 1) + " of " + game.getNumPuzzles() + ".\n"
                 + game.getPrompt(currentPuzzleIndex) + "\n"
                 + "\n"
                 + String.valueOf(gameState) + "\n"
                 + "\n"
-                + "misses: " + mistakes.toString() + "\n";
+                + "misses: " + misses + "\n";
     }
 
     private void generateOutput(String situation) {
         output = situation + "\n\n" + simpleOutput();
-        setChanged();
-        notifyObservers();
+        publish(MatchEventType.MOVE_APPLIED, playerIds[activeSlot]);
     }
 
-    private void nextActivePlayer(String playerId) {
-        if (livingPlayers.isEmpty()) {
+    // passes the turn to the next living player in the order of the slots
+    private void nextActivePlayer() {
+        if (!anyLiving()) {
             throw new RuntimeException();
         }
 
-        int currentPlayerIndex = players.indexOf(playerId);
-        int nextPlayerIndex;
+        for (int i = 1; i <= PLAYER_LIMIT; i++) {
+            int slot = (activeSlot + i) % PLAYER_LIMIT;
+            if (playerIds[slot] != null && living[slot]) {
+                activeSlot = slot;
+                startTurnTimer(template.getTurnTimeLimitSeconds());
+                publish(MatchEventType.TURN_ADVANCED, playerIds[activeSlot]);
+                return;
+            }
+        }
+    }
 
-        if (currentPlayerIndex < players.size() - 1) {
-            nextPlayerIndex = currentPlayerIndex + 1;
-        } else {
-            nextPlayerIndex = 0;
+    private boolean anyLiving() {
+        for (int slot = 0; slot < PLAYER_LIMIT; slot++) {
+            if (playerIds[slot] != null && living[slot]) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        if (livingPlayers.contains(players.get(nextPlayerIndex))) {
-            activePlayerId = players.get(nextPlayerIndex);
-            setChanged();
-            notifyObservers();
-        } else {
-            nextActivePlayer(players.get(nextPlayerIndex));
+    private int slotOf(String playerID) {
+        for (int slot = 0; slot < PLAYER_LIMIT; slot++) {
+            if (playerID.equals(playerIds[slot])) {
+                return slot;
+            }
         }
+        return -1;
     }
 
     private String getEndingMessage() {
         int highest = 0;
         StringBuilder winner = new StringBuilder();
-        for (String player : players) {
-            int score = scores.get(player);
-            score += remainingHints.get(player);
-            score += remainingLives.get(player);
+        for (int slot = 0; slot < PLAYER_LIMIT; slot++) {
+            if (playerIds[slot] == null) {
+                continue;
+            }
+            int score = scores[slot] + remainingHints[slot] + remainingLives[slot];
             if (score > highest) {
                 highest = score;
                 winner.setLength(0);
-                winner.append(playerNames.get(player));
+                winner.append(playerNames[slot]);
             } else if (score == highest) {
                 winner.append(", ");
-                winner.append(playerNames.get(player));
+                winner.append(playerNames[slot]);
             }
         }
         winner.append(" wins with a total score ");
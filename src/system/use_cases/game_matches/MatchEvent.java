@@ -0,0 +1,61 @@
+package system.use_cases.game_matches;
+
+import shared.DTOs.sockets.MatchOutput;
+import shared.constants.MatchEventType;
+
+/**
+ * MatchEvent Class
+ * <p>
+ * A change of a match, with what the players saw right after it. Listeners are called after the change has returned,
+ * so the output is taken when the event is published rather than read back from the match.
+ */
+public class MatchEvent {
+
+    private final MatchEventType type;
+    private final String matchID;
+    private final String playerID;
+    private final MatchOutput output;
+
+    /**
+     * Constructor of MatchEvent
+     *
+     * @param type     the kind of change
+     * @param matchID  the ID of the match
+     * @param playerID the ID of the player who caused the change, or null
+     * @param output   the output of the match right after the change
+     */
+    public MatchEvent(MatchEventType type, String matchID, String playerID, MatchOutput output) {
+        this.type = type;
+        this.matchID = matchID;
+        this.playerID = playerID;
+        this.output = output;
+    }
+
+    /**
+     * @return the kind of change
+     */
+    public MatchEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return the ID of the match
+     */
+    public String getMatchID() {
+        return matchID;
+    }
+
+    /**
+     * @return the ID of the player who caused the change, or null if no player did
+     */
+    public String getPlayerID() {
+        return playerID;
+    }
+
+    /**
+     * @return the output of the match right after the change
+     */
+    public MatchOutput getOutput() {
+        return output;
+    }
+}
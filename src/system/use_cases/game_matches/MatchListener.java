@@ -0,0 +1,16 @@
+package system.use_cases.game_matches;
+
+/**
+ * MatchListener Interface
+ * <p>
+ * Listens to the changes of a match.
+ */
+public interface MatchListener {
+
+    /**
+     * Called once for every change of the match, in order, after the change has returned.
+     *
+     * @param event the change
+     */
+    void onMatchEvent(MatchEvent event);
+}
@@ -1,6 +1,7 @@
 package system.use_cases.game_matches;
 
 import shared.constants.IDType;
+import shared.constants.MatchEventType;
 import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.DuplicateUserIDException;
 import shared.exceptions.use_case_exceptions.InvalidIDException;
@@ -21,13 +22,14 @@ public class QuizGameMatch extends GameMatch {
     private final Map<String, PlayerStat> playerStats;
     private final QuizGame game;
     private final QuizTemplate template;
+    private final QuizPlan plan;
     private int numMovedPlayers = 0;
     private int currQuestionIndex;
 
     private class PlayerStat {
 
         private final String username;
-        private final Map<String, Double> scoresByCategory;
+        private final double[] scores;
         private String lastInput;
         private int numAttempted = 0;
 
@@ -37,10 +39,7 @@ public class QuizGameMatch extends GameMatch {
          */
         public PlayerStat(String username) {
             this.username = username;
-            this.scoresByCategory = new HashMap<>();
-            for (String cat: game.getScoreCategories()) {
-                scoresByCategory.put(cat, 0.0);
-            }
+            this.scores = new double[plan.getNumCategories()];
             lastInput = null;
         }
 
@@ -52,43 +51,24 @@ public class QuizGameMatch extends GameMatch {
             numAttempted = 0;
         }
 
-        /**
-         * increase current score by @param
-         * @param valuesToAdd the desired value to be added to score
-         */
-        public void increaseScores(Map<String, Double> valuesToAdd) {
-            for (String category: valuesToAdd.keySet()) {
-                increaseScore(category, valuesToAdd.get(category));
-            }
-        }
-
-        /**
-         * increase specific category's score by value
-         * @param category the choosen category
-         * @param valueToAdd the desired value to be added to that category
-         */
-        public void increaseScore(String category, Double valueToAdd) {
-            scoresByCategory.put(category, scoresByCategory.get(category) + valueToAdd);
-        }
-
         /**
          * increase score based on given answer index
          * @param answerIndex  the given answer index
          */
         public void increaseScoreByAnswer(int answerIndex) {
-            this.increaseScores(game.getQuestion(currQuestionIndex).getAnswerScoreRewards(answerIndex));
+            plan.addRewards(currQuestionIndex, answerIndex, scores);
         }
 
         /**
          * get category with highest score
-         * @return category with highest score
+         * @return the number of the category with highest score, or -1 if there is no category
          */
-        public String getCategoryWithHighestScore() {
-            Double max = -1.0;
-            String highestCat = null;
-            for (String category: scoresByCategory.keySet()) {
-                if (scoresByCategory.get(category) > max) {
-                    max = scoresByCategory.get(category);
+        public int getCategoryWithHighestScore() {
+            double max = -1.0;
+            int highestCat = -1;
+            for (int category = 0; category < scores.length; category++) {
+                if (scores[category] > max) {
+                    max = scores[category];
                     highestCat = category;
                 }
             }
@@ -99,11 +79,11 @@ public class QuizGameMatch extends GameMatch {
          * get the highest score among all categories
          * @return the highest score among all categories
          */
-        public Double getHighestScore() {
-            Double max = -1.0;
-            for (String category: scoresByCategory.keySet()) {
-                if (scoresByCategory.get(category) > max) {
-                    max = scoresByCategory.get(category);
+        public double getHighestScore() {
+            double max = -1.0;
+            for (double score : scores) {
+                if (score > max) {
+                    max = score;
                 }
             }
             return max;
@@ -123,6 +103,7 @@ public class QuizGameMatch extends GameMatch {
         super(matchID, userID, username, PLAYER_LIMIT); // temporary player limit
         this.game = game;
         this.template = template;
+        this.plan = new QuizPlan(game, template);
         this.playerStats = new HashMap<>();
         try {
             addPlayer(userID, username);
@@ -143,8 +124,7 @@ public class QuizGameMatch extends GameMatch {
             throw new MaxPlayerReachedException();
         }
         playerStats.put(userID, new PlayerStat(username));
-        setChanged();
-        notifyObservers();
+        publish(MatchEventType.PLAYER_JOINED, userID);
     }
 
     /**
@@ -154,8 +134,7 @@ public class QuizGameMatch extends GameMatch {
     public void removePlayer(String playerID) throws InvalidIDException {
         if (playerStats.containsKey(playerID)) {
             this.playerStats.remove(playerID);
-            setChanged();
-            notifyObservers();
+            publish(MatchEventType.PLAYER_LEFT, playerID);
         }
         else throw  new InvalidIDException(IDType.USER);
     }
@@ -178,58 +157,40 @@ public class QuizGameMatch extends GameMatch {
         if (getStatus() == MatchStatus.FINISHED) {
             return getEndingContent();
         }
-        String currQuestion = game.getQuestion(currQuestionIndex).toString();
-
-        if (template.isMultipleChoice() && template.isChooseAllThatApply()) {
-                return currQuestion + "\nEnter all answers that apply, " +
-                        "separated by space: ";
-        } else if (template.isMultipleChoice() && template.hasMultipleScoreCategories()) {
-            return currQuestion + "\nEnter the number corresponding to your choice:";
-        } else { // One correct answer multiple choice or Exact answer
-            String lastRes = "";
-            if (currQuestionIndex > 0) {
-                int correctAnswerIndex = game.getQuestion(currQuestionIndex - 1).getCorrectAnswerIndex();
-                if (correctAnswerIndex != -1)
-                    lastRes = "Correct answer: " +
-                            game.getQuestion(currQuestionIndex - 1).getAnswer(correctAnswerIndex);
-            }
-            if (!template.isMultipleChoice())
-                return lastRes + "\n\n" + game.getQuestion(currQuestionIndex).getQuestionData() + "\nEnter exact answer";
-            return lastRes + "\n\n" + currQuestion;
-        }
+        return plan.getQuestionText(currQuestionIndex);
     }
 
     private String getEndingContent() {
         StringBuilder result = new StringBuilder();
-        if (template.isMultipleChoice() && template.hasMultipleScoreCategories() && !template.isChooseAllThatApply()) {
-            for (PlayerStat player: playerStats.values()) {
-                result.append("\n").append(player.username).
-                        append(": ").append(game.getEndingMessage(player.getCategoryWithHighestScore()));
-            }
-            return result.toString();
-        } else if (template.isChooseAllThatApply()) {
-            result.append("Quiz ended. Player scores are:");
-            for (PlayerStat player: playerStats.values()) {
-                result.append("\n").append(player.username).
-                        append(": ").
-                        append(player.getHighestScore());
-            }
-            return  result.toString();
-        } else { // Simple Multiple choice or simple exact answer.
-            int correctAnswerIndex = game.getQuestion(currQuestionIndex).getCorrectAnswerIndex();
-            if (correctAnswerIndex != -1) {
-                result.append("Correct answer: ").
-                        append(game.getQuestion(currQuestionIndex).getAnswer(correctAnswerIndex)).
-                        append("\n");
-            }
-            result.append("Quiz ended. Player scores are:");
-            for (PlayerStat player : playerStats.values()) {
-                result.append("\n").append(player.username).
-                        append(": ").
-                        append(player.getHighestScore()).
-                        append("/").append(game.getNumQuestions());
-            }
-            return result.toString();
+        switch (plan.getEnding()) {
+            case CATEGORY_MESSAGE:
+                for (PlayerStat player: playerStats.values()) {
+                    int category = player.getCategoryWithHighestScore();
+                    result.append("\n").append(player.username).
+                            append(": ").append(category == -1 ? null : plan.getEndingMessage(category));
+                }
+                return result.toString();
+            case HIGHEST_SCORE:
+                result.append("Quiz ended. Player scores are:");
+                for (PlayerStat player: playerStats.values()) {
+                    result.append("\n").append(player.username).
+                            append(": ").
+                            append(player.getHighestScore());
+                }
+                return  result.toString();
+            default: // Simple Multiple choice or simple exact answer.
+                String reveal = plan.getRevealText(currQuestionIndex);
+                if (!reveal.isEmpty()) {
+                    result.append(reveal).append("\n");
+                }
+                result.append("Quiz ended. Player scores are:");
+                for (PlayerStat player : playerStats.values()) {
+                    result.append("\n").append(player.username).
+                            append(": ").
+                            append(player.getHighestScore()).
+                            append("/").append(plan.getNumQuestions());
+                }
+                return result.toString();
         }
     }
 
@@ -272,22 +233,31 @@ public class QuizGameMatch extends GameMatch {
     @Override
     public void startMatch() {
         if (getStatus() == MatchStatus.PREPARING) {
-            setStatus(MatchStatus.ONGOING);
             this.currQuestionIndex = 0;
-            setChanged();
-            notifyObservers();
+            startTurnTimer(template.getTurnTimeLimitSeconds());
+            setStatus(MatchStatus.ONGOING);
         }
     }
 
 
+    /**
+     * The round ends and the players who haven't answered get no points for it.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onTurnTimeout() {
+        nextTurn();
+    }
+
     private void nextTurn() {
-        if (currQuestionIndex < game.getNumQuestions() - 1) {
+        if (currQuestionIndex < plan.getNumQuestions() - 1) {
             currQuestionIndex += 1;
+            startTurnTimer(template.getTurnTimeLimitSeconds());
+            publish(MatchEventType.TURN_ADVANCED, null);
         } else {
             setStatus(MatchStatus.FINISHED);
         }
-        setChanged();
-        notifyObservers();
         numMovedPlayers = 0;
         for(PlayerStat player: playerStats.values()) {
             player.clearLastTurn();
@@ -306,64 +276,83 @@ public class QuizGameMatch extends GameMatch {
         }
 
         if (getStatus() == MatchStatus.PREPARING) {
-            setChanged();
-            notifyObservers();
             return;
         }
 
         PlayerStat player = playerStats.get(playerID);
-        if (player.numAttempted >= game.getMaxAttempts())
+        if (player.numAttempted >= plan.getMaxAttempts())
             return;
 
-        if (template.isMultipleChoice()) {
-            handleMultipleChoiceMove(playerID, move);
+        if (plan.isMultipleChoice()) {
+            handleMultipleChoiceMove(player, move);
         }
         else {
-            handleExactAnswerMove(playerID, move);
+            handleExactAnswerMove(player, move);
         }
         player.numAttempted++;
         player.lastInput = move;
         if (player.numAttempted == 1){
             numMovedPlayers ++;
         }
-        setChanged();
-        notifyObservers();
+        publish(MatchEventType.MOVE_APPLIED, playerID);
         if (numMovedPlayers == getPlayerCount())
             nextTurn();
     }
 
 
-    private void handleExactAnswerMove(String playerID, String move) {
-        if (move.equals(game.getQuestion(currQuestionIndex).getAnswer(0).toString())) {
-            playerStats.get(playerID).increaseScoreByAnswer(0);
+    private void handleExactAnswerMove(PlayerStat player, String move) {
+        if (plan.isExactAnswer(currQuestionIndex, move)) {
+            player.increaseScoreByAnswer(0);
         }
     }
 
-    private void handleMultipleChoiceMove(String playerID, String move) throws InvalidInputException {
-        if (template.isChooseAllThatApply()) {
-            String[] choices = move.split(" ");
-            for (String choice: choices) {
-                try {
-                    int answerIndex = Integer.parseInt(choice) - 1;
-                    if (answerIndex >= game.getQuestion(currQuestionIndex).getAnswerNum() || answerIndex < 0)
-                        throw new InvalidInputException();
-                    playerStats.get(playerID).increaseScoreByAnswer(answerIndex);
-                }
-                catch (NumberFormatException e) {
-                    throw new InvalidInputException();
-                }
-            }
+    // every choice is checked before any is scored, so an invalid choice scores none of them
+    private void handleMultipleChoiceMove(PlayerStat player, String move) throws InvalidInputException {
+        if (plan.isChooseAllThatApply()) {
+            int end = move.length();
+            while (end > 0 && move.charAt(end - 1) == ' ')
+                end--;
+            if (end == 0)
+                throw new InvalidInputException();
+            scoreChoices(null, move, end);
+            scoreChoices(player, move, end);
         }
         else {
-            try {
-                int answerIndex = Integer.parseInt(move) - 1;
-                if (answerIndex >= game.getQuestion(currQuestionIndex).getAnswerNum() || answerIndex < 0)
-                    throw new InvalidInputException();
-                playerStats.get(playerID).increaseScoreByAnswer(answerIndex);
-            }
-            catch (NumberFormatException e) {
+            player.increaseScoreByAnswer(parseChoice(move, 0, move.length()));
+        }
+    }
+
+    // parses the space separated choices of move up to end, and scores them unless player is null
+    private void scoreChoices(PlayerStat player, String move, int end) throws InvalidInputException {
+        int from = 0;
+        while (true) {
+            int space = move.indexOf(' ', from);
+            int to = space == -1 || space > end ? end : space;
+            int answerIndex = parseChoice(move, from, to);
+            if (player != null)
+                player.increaseScoreByAnswer(answerIndex);
+            if (to == end)
+                return;
+            from = to + 1;
+        }
+    }
+
+    // the index of the answer numbered by the digits of move between from and to
+    private int parseChoice(String move, int from, int to) throws InvalidInputException {
+        if (from == to)
+            throw new InvalidInputException();
+        int numAnswers = plan.getNumAnswers(currQuestionIndex);
+        int choice = 0;
+        for (int i = from; i < to; i++) {
+            char c = move.charAt(i);
+            if (c < '0' || c > '9')
+                throw new InvalidInputException();
+            choice = choice * 10 + (c - '0');
+            if (choice > numAnswers)
                 throw new InvalidInputException();
-            }
         }
+        if (choice < 1)
+            throw new InvalidInputException();
+        return choice - 1;
     }
 }
@@ -0,0 +1,198 @@
+package system.use_cases.game_matches;
+
+import system.entities.game.quiz.QuizGame;
+import system.entities.game.quiz.QuizQuestion;
+import system.entities.template.QuizTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * QuizPlan Class
+ * <p>
+ * A quiz compiled for one template when its match is created. The text of every question is rendered once, the score
+ * categories are numbered, and the rewards of every answer are kept as an array indexed by category number. A match
+ * renders and scores through its plan without checking the template or looking anything up in a map.
+ * <p>
+ * A plan is immutable. Later edits to the game or the template don't reach the matches already created.
+ */
+final class QuizPlan {
+
+    /**
+     * How the end of a quiz is reported.
+     */
+    enum Ending {
+        /** the ending message of each player's best category */
+        CATEGORY_MESSAGE,
+        /** each player's best category score */
+        HIGHEST_SCORE,
+        /** the last correct answer, then each player's score out of the number of questions */
+        SCORE_OUT_OF_QUESTIONS
+    }
+
+    private final boolean multipleChoice;
+    private final boolean chooseAllThatApply;
+    private final Ending ending;
+    private final int maxAttempts;
+    private final String[] categories;
+    private final String[] endingMessages;
+    private final String[] questionTexts;
+    private final String[] revealTexts;
+    private final String[] exactAnswers;
+    private final double[][][] rewards;
+
+    /**
+     * Constructor of QuizPlan
+     * @param game the quiz
+     * @param template the template the quiz is played with
+     */
+    QuizPlan(QuizGame game, QuizTemplate template) {
+        multipleChoice = template.isMultipleChoice();
+        chooseAllThatApply = template.isChooseAllThatApply();
+        if (multipleChoice && template.hasMultipleScoreCategories() && !chooseAllThatApply) {
+            ending = Ending.CATEGORY_MESSAGE;
+        } else if (chooseAllThatApply) {
+            ending = Ending.HIGHEST_SCORE;
+        } else {
+            ending = Ending.SCORE_OUT_OF_QUESTIONS;
+        }
+        maxAttempts = game.getMaxAttempts();
+
+        Map<String, Integer> categoryNumbers = new HashMap<>();
+        categories = game.getScoreCategories().toArray(new String[0]);
+        endingMessages = new String[categories.length];
+        for (int category = 0; category < categories.length; category++) {
+            categoryNumbers.put(categories[category], category);
+            endingMessages[category] = game.getEndingMessage(categories[category]);
+        }
+
+        int numQuestions = game.getNumQuestions();
+        questionTexts = new String[numQuestions];
+        revealTexts = new String[numQuestions];
+        exactAnswers = new String[numQuestions];
+        rewards = new double[numQuestions][][];
+        for (int index = 0; index < numQuestions; index++) {
+            QuizQuestion question = game.getQuestion(index);
+            int correctAnswerIndex = question.getCorrectAnswerIndex();
+            revealTexts[index] = correctAnswerIndex == -1 ? ""
+                    : "Correct answer: " + question.getAnswer(correctAnswerIndex);
+            exactAnswers[index] = question.getAnswerNum() > 0 ? question.getAnswer(0).toString() : null;
+            rewards[index] = new double[question.getAnswerNum()][categories.length];
+            for (int answer = 0; answer < question.getAnswerNum(); answer++) {
+                for (Map.Entry<String, Double> reward : question.getAnswerScoreRewards(answer).entrySet()) {
+                    Integer category = categoryNumbers.get(reward.getKey());
+                    if (category != null)
+                        rewards[index][answer][category] = reward.getValue();
+                }
+            }
+            questionTexts[index] = renderQuestion(template, question, index == 0 ? "" : revealTexts[index - 1]);
+        }
+    }
+
+    private static String renderQuestion(QuizTemplate template, QuizQuestion question, String lastRes) {
+        if (template.isMultipleChoice() && template.isChooseAllThatApply()) {
+            return question + "\nEnter all answers that apply, separated by space: ";
+        } else if (template.isMultipleChoice() && template.hasMultipleScoreCategories()) {
+            return question + "\nEnter the number corresponding to your choice:";
+        } else if (!template.isMultipleChoice()) {
+            return lastRes + "\n\n" + question.getQuestionData() + "\nEnter exact answer";
+        }
+        return lastRes + "\n\n" + question;
+    }
+
+    /**
+     * @return whether the players answer by choosing numbered answers
+     */
+    boolean isMultipleChoice() {
+        return multipleChoice;
+    }
+
+    /**
+     * @return whether a player may choose several answers at once
+     */
+    boolean isChooseAllThatApply() {
+        return chooseAllThatApply;
+    }
+
+    /**
+     * @return how the end of the quiz is reported
+     */
+    Ending getEnding() {
+        return ending;
+    }
+
+    /**
+     * @return the number of answers a player may give to a question
+     */
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return the number of questions
+     */
+    int getNumQuestions() {
+        return questionTexts.length;
+    }
+
+    /**
+     * @return the number of score categories
+     */
+    int getNumCategories() {
+        return categories.length;
+    }
+
+    /**
+     * @param category the number of a score category
+     * @return the ending message of the category
+     */
+    String getEndingMessage(int category) {
+        return endingMessages[category];
+    }
+
+    /**
+     * @param index the index of a question
+     * @return what the players see while the question is asked
+     */
+    String getQuestionText(int index) {
+        return questionTexts[index];
+    }
+
+    /**
+     * @param index the index of a question
+     * @return the line revealing the correct answer of the question, or an empty string if it has none
+     */
+    String getRevealText(int index) {
+        return revealTexts[index];
+    }
+
+    /**
+     * @param index the index of a question
+     * @return the number of answers of the question
+     */
+    int getNumAnswers(int index) {
+        return rewards[index].length;
+    }
+
+    /**
+     * @param index the index of a question
+     * @param move the answer a player typed
+     * @return whether the move is the exact answer of the question
+     */
+    boolean isExactAnswer(int index, String move) {
+        return move.equals(exactAnswers[index]);
+    }
+
+    /**
+     * Adds the rewards of an answer to the scores of a player.
+     * @param index the index of a question
+     * @param answer the index of the answer
+     * @param scores the scores of the player, indexed by category number
+     */
+    void addRewards(int index, int answer, double[] scores) {
+        double[] reward = rewards[index][answer];
+        for (int category = 0; category < reward.length; category++) {
+            scores[category] += reward[category];
+        }
+    }
+}
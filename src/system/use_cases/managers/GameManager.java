@@ -18,6 +18,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * GameManager Class
@@ -28,22 +29,25 @@ public class GameManager {
     private final Map<String, Game> temporaryGames;
     private final IdManager idManager;
     private final GameDataGateway gateway;
+    private final AtomicLong version;
 
     /**
      * Constructor of GameManager
      * @param gateway the gateway that communicate with database
+     * @param idManager the source of the IDs of new games
      * @throws IOException if there is an issue with input-output
      */
-    public GameManager(GameDataGateway gateway) throws IOException {
+    public GameManager(GameDataGateway gateway, IdManager idManager) throws IOException {
         games = new HashMap<>();
         gameBuilders = new HashMap<>();
         temporaryGames = new HashMap<>();
+        version = new AtomicLong();
         this.gateway = gateway;
 
         for (Game game : this.gateway.getAllGames()) {
             games.put(game.getID(), game);
         }
-        this.idManager = new IdManager(gateway.getGameCount() + 1);
+        this.idManager = idManager;
     }
 
     /**
@@ -143,6 +147,7 @@ public class GameManager {
             throw new RuntimeException();
         }
         gameBuilders.remove(creatorID);
+        version.incrementAndGet();
         return id;
     }
 
@@ -174,6 +179,7 @@ public class GameManager {
             throw new IDNotYetSetException();
         }
         gameBuilders.remove(creatorID);
+        version.incrementAndGet();
         return id;
     }
 
@@ -202,6 +208,13 @@ public class GameManager {
         return games.get(id);
     }
 
+    /**
+     * @return the version of the game catalog, bumped after every game built and every access level change
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     /**
      * @return a mapping of all Game Ids to game titles.
      */
@@ -243,6 +256,7 @@ public class GameManager {
                 throw new RuntimeException("Dysfunctional Database.");
             }
         }
+        version.incrementAndGet();
 
     }
     /**
@@ -266,6 +280,7 @@ public class GameManager {
         } catch (IOException e) {
             throw new RuntimeException("Dysfunctional Database.");
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -1,23 +1,109 @@
 package system.use_cases.managers;
 
+import system.gateways.CounterGateway;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * IdManager Class
+ * <p>
+ * Hands out the IDs of one kind of entity to any number of threads. The IDs are taken from a block of values reserved
+ * from a durable counter, so the counter is only written once per block. Within a block, an ID is a single atomic
+ * increment; only the thread that finds the block used up waits on the reservation of the next one. The IDs left in a
+ * block when the server stops are never handed out.
+ * <p>
+ * When several server processes don't share their database, each is given a node prefix, which is put in front of its
+ * IDs so they can't collide.
  */
 public class IdManager {
-    private Integer nextId;
+    private final CounterGateway gateway;
+    private final String counter;
+    private final int blockSize;
+    private final String prefix;
+    private final AtomicReference<Block> block;
+    private final ReentrantLock reserving = new ReentrantLock();
 
     /**
+     * Block Class
+     * <p>
+     * A range of reserved IDs, and the next one to hand out.
+     */
+    private static class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    /**
+     * Constructor of IdManager, for IDs that only live as long as the server
      * @param start the id to start counting from
      */
     public IdManager(int start) {
-        nextId = start;
+        this(start, "");
+    }
+
+    /**
+     * Constructor of IdManager, for IDs that only live as long as the server
+     * @param start the id to start counting from
+     * @param nodePrefix the prefix of the IDs of this server, or an empty string for none
+     */
+    public IdManager(int start, String nodePrefix) {
+        this.gateway = null;
+        this.counter = null;
+        this.blockSize = 0;
+        this.prefix = nodePrefix.isEmpty() ? "" : nodePrefix + "-";
+        this.block = new AtomicReference<>(new Block(start, Long.MAX_VALUE));
+    }
+
+    /**
+     * Constructor of IdManager, for IDs reserved from a durable counter
+     * @param gateway the gateway of the counters
+     * @param counter the name of the counter
+     * @param blockSize the number of IDs reserved at once
+     * @param nodePrefix the prefix of the IDs of this server, or an empty string for none
+     */
+    public IdManager(CounterGateway gateway, String counter, int blockSize, String nodePrefix) {
+        this.gateway = gateway;
+        this.counter = counter;
+        this.blockSize = Math.max(1, blockSize);
+        this.prefix = nodePrefix.isEmpty() ? "" : nodePrefix + "-";
+        this.block = new AtomicReference<>(new Block(0, 0));
     }
 
     /**
      * @return a unique id that has not been used before
      */
     public String getNextId() {
-        return (nextId++).toString();
+        while (true) {
+            Block current = block.get();
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return prefix + id;
+            }
+            reserveAfter(current);
+        }
     }
 
+    // A lock rather than a monitor, since the reservation waits on the disk and must not pin a virtual thread.
+    private void reserveAfter(Block used) {
+        reserving.lock();
+        try {
+            if (block.get() != used) {
+                return;
+            }
+            long start = gateway.reserve(counter, blockSize);
+            block.set(new Block(start, start + blockSize));
+        } catch (IOException e) {
+            throw new RuntimeException("Fatal Error: Database malfunction.");
+        } finally {
+            reserving.unlock();
+        }
+    }
 }
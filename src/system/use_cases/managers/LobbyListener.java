@@ -0,0 +1,19 @@
+package system.use_cases.managers;
+
+import shared.DTOs.sockets.LobbyEvent;
+
+/**
+ * LobbyListener Interface
+ * <p>
+ * Listens to the changes of the matches that can be joined.
+ */
+public interface LobbyListener {
+
+    /**
+     * Called after every match created or started and every player added to or removed from a preparing match. The
+     * event only holds the type of the change and the ID of the match, the match itself is read from the manager.
+     *
+     * @param event the change
+     */
+    void onLobbyEvent(LobbyEvent event);
+}
@@ -1,36 +1,229 @@
 package system.use_cases.managers;
 
+import shared.DTOs.sockets.LobbyEvent;
+import shared.DTOs.sockets.MatchOutput;
 import shared.constants.IDType;
+import shared.constants.LobbyEventType;
 import shared.constants.MatchStatus;
 import shared.exceptions.use_case_exceptions.*;
 import system.entities.game.Game;
 import system.use_cases.game_matches.GameMatch;
+import system.use_cases.game_matches.MatchListener;
 import system.entities.template.Template;
 import system.use_cases.factories.GameMatchFactory;
+import system.utilities.HashedWheelTimer;
+import system.utilities.ShardedExecutor;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * MatchManager Class
+ * <p>
+ * Every match lives in a single registry keyed by ID, in a {@link MatchHandle} that tracks its status. A lookup is one
+ * hash probe whatever the status of the match, and a status change swaps the status of the handle in place, so a
+ * concurrent reader never misses a match that is moving from one status to the next. The only secondary index is the
+ * set of preparing matches, for the lobby.
+ * <p>
+ * Starts, joins, leaves and moves are run on the thread of their match, taken from a {@link ShardedExecutor} by match
+ * ID. Each match is thus only ever changed from one thread at a time and in the order the changes arrived, without any
+ * lock in the matches themselves. The methods that change a match still wait for the change and throw as before. The
+ * getters read the output a match last published instead, so the lobby and the sockets never touch a match that its
+ * thread is changing.
+ * <p>
+ * A match that stays unchanged for longer than the time to live of its status is evicted by {@link #sweep()}, handed to
+ * the {@link Archiver} if there is one. The deadlines are kept in a queue ordered by time, so a sweep only looks at the
+ * matches that are due. A change doesn't touch the queue: it only moves the time of the last change of the match, and
+ * a match found in the queue that changed since is put back with its new deadline.
  */
 public class MatchManager {
-    private final ConcurrentMap<String, GameMatch> preparingMatches;
-    private final ConcurrentMap<String, GameMatch> ongoingMatches;
-    private final ConcurrentMap<String, GameMatch> finishedMatches;
+    private static final int MATCH_OVERHEAD_BYTES = 1024;
+    private static final int PLAYER_OVERHEAD_BYTES = 256;
+
+    private final ConcurrentMap<String, MatchHandle> matches;
+    private final Set<String> preparingMatchIds;
     private final IdManager matchIdMgr;
     private final GameMatchFactory matchFactory;
+    private final AtomicLong version;
+    private final Lobby lobby;
+    private final ShardedExecutor matchThreads;
+    private final HashedWheelTimer turnTimer;
+    private final DelayQueue<Expiry> expiries;
+    private final Map<MatchStatus, Long> timeToLiveMillis;
+    private final Map<MatchStatus, LongAdder> evictedMatches;
+    private final LongAdder estimatedReclaimedBytes;
+    private volatile Archiver archiver;
 
     /**
-     * Constructor of MatchManager
+     * MatchHandle Class
+     * <p>
+     * A match in the registry. The status only moves forward. It is moved to ONGOING on the thread of the match, once
+     * the match itself started. A match finishes on its own while a move is played, so the handle catches up with the
+     * status the match last published with a compare-and-set whenever its status is read.
+     */
+    private static class MatchHandle {
+        final GameMatch match;
+        final AtomicReference<MatchStatus> status;
+        volatile long lastChange;
+
+        MatchHandle(GameMatch match) {
+            this.match = match;
+            this.status = new AtomicReference<>(match.getStatus());
+            this.lastChange = System.nanoTime();
+        }
+
+        MatchStatus current() {
+            MatchStatus current = status.get();
+            if (current == MatchStatus.ONGOING && match.getPublishedOutput().status == MatchStatus.FINISHED) {
+                status.compareAndSet(MatchStatus.ONGOING, MatchStatus.FINISHED);
+                return MatchStatus.FINISHED;
+            }
+            return current;
+        }
+
+        boolean is(MatchStatus expected) {
+            return current() == expected;
+        }
+    }
+
+    /**
+     * Expiry Class
+     * <p>
+     * The deadline a match was queued for eviction with.
+     */
+    private static class Expiry implements Delayed {
+        final MatchHandle handle;
+        final long deadline;
+
+        Expiry(MatchHandle handle, long deadline) {
+            this.handle = handle;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Expiry) other).deadline);
+        }
+    }
+
+    /**
+     * Archiver Interface
+     * <p>
+     * Receives the matches evicted by the sweeper, on the thread of the match, after they left the registry.
+     */
+    public interface Archiver {
+        /**
+         * @param match  the evicted match
+         * @param status the status the match was evicted in
+         */
+        void archive(GameMatch match, MatchStatus status);
+    }
+
+    /**
+     * MatchChange Interface
+     * <p>
+     * A change to a match, run on the thread of the match.
+     */
+    private interface MatchChange {
+        void apply() throws Exception;
+    }
+
+    /**
+     * Lobby Class
+     * <p>
+     * The matches that can be joined, as seen by the {@link LobbyListener}s. The listeners are kept in a copy-on-write
+     * list, so publishing never locks and a listener can be added or removed while a change is published.
+     */
+    private static class Lobby {
+        final List<LobbyListener> listeners = new CopyOnWriteArrayList<>();
+
+        void publish(LobbyEventType type, String matchID) {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            LobbyEvent event = new LobbyEvent();
+            event.type = type;
+            event.matchId = matchID;
+            for (LobbyListener listener : listeners) {
+                listener.onLobbyEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Constructor of MatchManager, with a match thread per processor
      */
     public MatchManager() {
-        preparingMatches = new ConcurrentHashMap<>();
-        ongoingMatches = new ConcurrentHashMap<>();
-        finishedMatches = new ConcurrentHashMap<>();
-        matchIdMgr = new IdManager(0);
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor of MatchManager
+     *
+     * @param matchThreads the number of threads the matches are spread over
+     */
+    public MatchManager(int matchThreads) {
+        this(matchThreads, "");
+    }
+
+    /**
+     * Constructor of MatchManager
+     *
+     * @param matchThreads the number of threads the matches are spread over
+     * @param nodeId the prefix of the match IDs of this server, or an empty string for none
+     */
+    public MatchManager(int matchThreads, String nodeId) {
+        matches = new ConcurrentHashMap<>();
+        preparingMatchIds = ConcurrentHashMap.newKeySet();
+        matchIdMgr = new IdManager(0, nodeId);
         matchFactory = new GameMatchFactory();
+        version = new AtomicLong();
+        lobby = new Lobby();
+        this.matchThreads = new ShardedExecutor("match", matchThreads);
+        turnTimer = new HashedWheelTimer("match-turn-timer", 100, TimeUnit.MILLISECONDS, 512);
+        turnTimer.start();
+        expiries = new DelayQueue<>();
+        timeToLiveMillis = new EnumMap<>(MatchStatus.class);
+        timeToLiveMillis.put(MatchStatus.PREPARING, TimeUnit.MINUTES.toMillis(30));
+        timeToLiveMillis.put(MatchStatus.ONGOING, TimeUnit.MINUTES.toMillis(30));
+        timeToLiveMillis.put(MatchStatus.FINISHED, TimeUnit.MINUTES.toMillis(5));
+        evictedMatches = new EnumMap<>(MatchStatus.class);
+        for (MatchStatus status : MatchStatus.values())
+            evictedMatches.put(status, new LongAdder());
+        estimatedReclaimedBytes = new LongAdder();
+    }
+
+    /**
+     * Sets how long a match may stay unchanged in a status before it is evicted. Meant to be called before any match
+     * is created, the deadlines already queued keep the previous value.
+     *
+     * @param status the status
+     * @param seconds the time to live, or 0 to never evict the matches in this status
+     * */
+    public void setTimeToLive(MatchStatus status, long seconds) {
+        timeToLiveMillis.put(status, TimeUnit.SECONDS.toMillis(seconds));
+    }
+
+    /**
+     * Sets the archiver the evicted matches are handed to.
+     *
+     * @param archiver the archiver, or null to drop the evicted matches
+     * */
+    public void setArchiver(Archiver archiver) {
+        this.archiver = archiver;
     }
 
     /**
@@ -45,7 +238,15 @@ public class MatchManager {
      * */
     public String newMatch(String userID, String username, Game game, Template template) {
         GameMatch newMatch = matchFactory.getGameMatch(matchIdMgr.getNextId(), userID, username, game, template);
-        preparingMatches.put(newMatch.getID(), newMatch);
+        newMatch.setEventExecutor(task -> matchThreads.queue(newMatch.getID(), task));
+        newMatch.setTurnTimer(turnTimer);
+        newMatch.recordOutput();
+        MatchHandle handle = new MatchHandle(newMatch);
+        matches.put(newMatch.getID(), handle);
+        preparingMatchIds.add(newMatch.getID());
+        expiries.add(new Expiry(handle, deadlineOf(handle)));
+        version.incrementAndGet();
+        lobby.publish(LobbyEventType.CREATED, newMatch.getID());
         return newMatch.getID();
     }
     /**
@@ -55,12 +256,21 @@ public class MatchManager {
      * @throws InvalidIDException When there is no such match with the PREPARING status.
      * */
     public void startMatch(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            ongoingMatches.put(matchID, preparingMatches.remove(matchID));
-            ongoingMatches.get(matchID).startMatch();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        Exception failure = change(matchID, () -> {
+            MatchHandle handle = matches.get(matchID);
+            if (handle == null || !handle.is(MatchStatus.PREPARING)) {
+                throw new InvalidIDException(IDType.MATCH);
+            }
+            // The changes of a match run one at a time on its thread, so nothing moves the handle in between. It only
+            // moves on once the match started, so a match that fails to start stays preparing.
+            handle.match.startMatch();
+            handle.status.set(MatchStatus.ONGOING);
+            preparingMatchIds.remove(matchID);
+            version.incrementAndGet();
+            lobby.publish(LobbyEventType.STARTED, matchID);
+        });
+        throwIf(failure, InvalidIDException.class);
+        checkHandled(failure);
     }
     /**
      * Add a player to a preparing match.
@@ -73,12 +283,15 @@ public class MatchManager {
     public void addPlayer(String userID, String username, String matchID) throws
             InvalidIDException, DuplicateUserIDException,
             MaxPlayerReachedException {
-        if (preparingMatches.containsKey(matchID)) {
-            preparingMatches.get(matchID).addPlayer(userID, username);
-        }
-        else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        Exception failure = change(matchID, () -> {
+            findWithStatus(matchID, MatchStatus.PREPARING).match.addPlayer(userID, username);
+            version.incrementAndGet();
+            lobby.publish(LobbyEventType.PLAYERS_CHANGED, matchID);
+        });
+        throwIf(failure, InvalidIDException.class);
+        throwIf(failure, DuplicateUserIDException.class);
+        throwIf(failure, MaxPlayerReachedException.class);
+        checkHandled(failure);
     }
 
     /**
@@ -88,21 +301,21 @@ public class MatchManager {
      * @throws InvalidIDException if the match doesn't exist.
      * */
     public void removePlayer(String userID, String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            preparingMatches.get(matchID).removePlayer(userID);
-            if (preparingMatches.get(matchID).getPlayerCount() == 0)
-                preparingMatches.remove(matchID);
-        } else if (ongoingMatches.containsKey(matchID)) {
-            ongoingMatches.get(matchID).removePlayer(userID);
-            if (ongoingMatches.get(matchID).getPlayerCount() == 0)
-                ongoingMatches.remove(matchID);
-        } else if (finishedMatches.containsKey(matchID)) {
-            finishedMatches.get(matchID).removePlayer(userID);
-            if (finishedMatches.get(matchID).getPlayerCount() == 0)
-                finishedMatches.remove(matchID);
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        Exception failure = change(matchID, () -> {
+            MatchHandle handle = find(matchID);
+            boolean preparing = handle.is(MatchStatus.PREPARING);
+            handle.match.removePlayer(userID);
+            LobbyEventType lobbyChange = preparing ? LobbyEventType.PLAYERS_CHANGED : null;
+            if (handle.match.getPlayerCount() == 0 && matches.remove(matchID, handle)) {
+                if (preparingMatchIds.remove(matchID))
+                    lobbyChange = LobbyEventType.REMOVED;
+            }
+            version.incrementAndGet();
+            if (lobbyChange != null)
+                lobby.publish(lobbyChange, matchID);
+        });
+        throwIf(failure, InvalidIDException.class);
+        checkHandled(failure);
     }
 
     /**
@@ -111,49 +324,43 @@ public class MatchManager {
      * @param matchID The String identifier of the match.
      * */
     public MatchStatus getMatchStatus(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getStatus();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getStatus();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getStatus();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        return find(matchID).current();
     }
 
     /**
-     * Add an observer to a match.
+     * Add a listener to a match. It is called on the thread of the match, after each change.
      *
-     * @param o the observer
+     * @param listener the listener
      * @param matchID The ID of the match.
      * @throws InvalidIDException When there is no preparing match with the given ID.
      * */
-    public void addObserver(Observer o, String matchID) throws InvalidIDException {
-            if (preparingMatches.containsKey(matchID)) {
-                preparingMatches.get(matchID).addObserver(o);
-            } else {
-                throw new InvalidIDException(IDType.MATCH);
-            }
+    public void addListener(MatchListener listener, String matchID) throws InvalidIDException {
+        findWithStatus(matchID, MatchStatus.PREPARING).match.addListener(listener);
     }
 
     /**
-     * Remove an observer from a match.
+     * Add a listener to a match that hasn't finished, for watching it without taking part in it.
      *
-     * @param o the observer
+     * @param listener the listener
      * @param matchID The ID of the match.
-     * @throws InvalidIDException When there is no preparing match with the given ID.
+     * @throws InvalidIDException When there is no such match in the system, or the match has finished.
      * */
-    public void deleteObserver(Observer o, String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            preparingMatches.get(matchID).deleteObserver(o);
-        } else if (ongoingMatches.containsKey(matchID)) {
-            ongoingMatches.get(matchID).deleteObserver(o);
-        } else if (finishedMatches.containsKey(matchID)) {
-            finishedMatches.get(matchID).deleteObserver(o);
-        } else {
+    public void addSpectatorListener(MatchListener listener, String matchID) throws InvalidIDException {
+        MatchHandle handle = find(matchID);
+        if (handle.is(MatchStatus.FINISHED))
             throw new InvalidIDException(IDType.MATCH);
-        }
+        handle.match.addListener(listener);
+    }
+
+    /**
+     * Remove a listener from a match.
+     *
+     * @param listener the listener
+     * @param matchID The ID of the match.
+     * @throws InvalidIDException When there is no such match in the system.
+     * */
+    public void removeListener(MatchListener listener, String matchID) throws InvalidIDException {
+        find(matchID).match.removeListener(listener);
     }
 
     /**
@@ -163,15 +370,7 @@ public class MatchManager {
      * @throws InvalidIDException There is no match with such ID in the system.
      * */
     public String getGameIdFromMatch(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getGameId();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getGameId();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getGameId();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        return find(matchID).match.getGameId();
     }
 
     /**
@@ -181,15 +380,7 @@ public class MatchManager {
      * @throws InvalidIDException When there is no such match in the system.
      * */
     public int getPlayerCount(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getPlayerCount();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getPlayerCount();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getPlayerCount();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        return find(matchID).match.getPublishedOutput().numPlayers;
     }
 
     /**
@@ -198,15 +389,7 @@ public class MatchManager {
      * @param matchID The ID of the match.
      * */
     public String getHostId(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getHostID();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getHostID();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getHostID();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        return find(matchID).match.getHostID();
     }
 
     /**
@@ -215,15 +398,7 @@ public class MatchManager {
      * @param matchID The ID of the match.
      * */
     public String getHostName(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getHostName();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getHostName();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getHostName();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
-        }
+        return find(matchID).match.getHostName();
     }
 
     /**
@@ -232,22 +407,117 @@ public class MatchManager {
      * @param matchID The ID of the match.
      * */
     public int getPlayerCountLimit(String matchID) throws InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getPlayerLimit();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getPlayerLimit();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getPlayerLimit();
-        } else {
-            throw new InvalidIDException(IDType.MATCH);
+        return find(matchID).match.getPlayerLimit();
+    }
+
+    /**
+     * Adds a listener of the matches that can be joined, called with a {@link LobbyEvent} after every match created
+     * or started and every player added to or removed from a preparing match.
+     *
+     * @param listener the listener to add
+     * */
+    public void addLobbyListener(LobbyListener listener) {
+        lobby.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener of the matches that can be joined.
+     *
+     * @param listener the listener to remove
+     * */
+    public void removeLobbyListener(LobbyListener listener) {
+        lobby.listeners.remove(listener);
+    }
+
+    /**
+     * Returns the version of the match catalog, bumped after every match created or started and every player added
+     * or removed.
+     * */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Queues the eviction of every match whose deadline has passed. Only the due matches are looked at, and the
+     * evictions run on the threads of the matches, so the caller never waits on them.
+     * */
+    public void sweep() {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            MatchHandle handle = expiry.handle;
+            matchThreads.queue(handle.match.getID(), () -> evictIfExpired(handle));
         }
     }
 
+    private void evictIfExpired(MatchHandle handle) {
+        String matchID = handle.match.getID();
+        if (matches.get(matchID) != handle)
+            return;
+        long deadline = deadlineOf(handle);
+        if (deadline - System.nanoTime() > 0) {
+            expiries.add(new Expiry(handle, deadline));
+            return;
+        }
+        MatchStatus status = handle.current();
+        matches.remove(matchID, handle);
+        handle.match.evict();
+        boolean preparing = preparingMatchIds.remove(matchID);
+        evictedMatches.get(status).increment();
+        estimatedReclaimedBytes.add(estimateSize(handle.match));
+        version.incrementAndGet();
+        if (preparing)
+            lobby.publish(LobbyEventType.REMOVED, matchID);
+        Archiver archiver = this.archiver;
+        if (archiver != null)
+            archiver.archive(handle.match, status);
+    }
+
+    /**
+     * A match in a status that is never evicted is checked again after a minute, in case its status changed.
+     */
+    private long deadlineOf(MatchHandle handle) {
+        long timeToLive = timeToLiveMillis.get(handle.current());
+        if (timeToLive <= 0)
+            return System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        return handle.lastChange + TimeUnit.MILLISECONDS.toNanos(timeToLive);
+    }
+
+    /**
+     * A rough estimate of the memory held by a match alone, from the size of what its players see. The game and the
+     * template of the match are shared with the other managers and not counted.
+     */
+    private static long estimateSize(GameMatch match) {
+        long size = MATCH_OVERHEAD_BYTES + 2L * match.getTextContent().length();
+        if (match.getStatus() != MatchStatus.PREPARING) {
+            for (Map.Entry<String, String> stat : match.getAllPlayerStats().entrySet())
+                size += PLAYER_OVERHEAD_BYTES + 2L * (stat.getKey().length() + stat.getValue().length());
+        }
+        return size;
+    }
+
+    /**
+     * Returns the counters of the sweeper:
+     * <ul>
+     *     <li>matches: the matches in the registry</li>
+     *     <li>evictedPreparing, evictedOngoing and evictedFinished: the matches evicted in each status so far</li>
+     *     <li>estimatedReclaimedBytes: a rough estimate of the memory those matches held, not a measurement</li>
+     * </ul>
+     * */
+    public Map<String, Long> getLifecycleMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("matches", (long) matches.size());
+        metrics.put("evictedPreparing", evictedMatches.get(MatchStatus.PREPARING).sum());
+        metrics.put("evictedOngoing", evictedMatches.get(MatchStatus.ONGOING).sum());
+        metrics.put("evictedFinished", evictedMatches.get(MatchStatus.FINISHED).sum());
+        metrics.put("estimatedReclaimedBytes", estimatedReclaimedBytes.sum());
+        return metrics;
+    }
+
     /**
      * Returns a set of all match ids of match with PREPARING status.
      * */
     public Set<String> getAllPreparingMatchIds() {
-        return new HashSet<>(preparingMatches.keySet());
+        return new HashSet<>(preparingMatchIds);
     }
 
     /**
@@ -262,21 +532,76 @@ public class MatchManager {
      * */
     public void playGameMove(String playerID, String matchID, String move)
             throws InvalidIDException, InvalidInputException{
-        if (ongoingMatches.containsKey(matchID)) {
-            ongoingMatches.get(matchID).playMove(playerID, move);
-            if (ongoingMatches.get(matchID).getStatus() == MatchStatus.FINISHED) {
-                finishedMatches.put(matchID, ongoingMatches.remove(matchID));
-            }
-        } else if (preparingMatches.containsKey(matchID)) {
-            preparingMatches.get(matchID).playMove(playerID, move);
-        } else if (finishedMatches.containsKey(matchID)) {
-            finishedMatches.get(matchID).playMove(playerID, move);
-        }
-        else {
-            throw new InvalidIDException(IDType.USER);
+        Exception failure = change(matchID, () -> {
+            MatchHandle handle = matches.get(matchID);
+            if (handle == null)
+                throw new InvalidIDException(IDType.USER);
+            handle.match.playMove(playerID, move);
+            handle.current();
+        });
+        throwIf(failure, InvalidIDException.class);
+        throwIf(failure, InvalidInputException.class);
+        checkHandled(failure);
+    }
+
+    /**
+     * Runs a task on the thread of a match, after every change to the match already queued. The changes the task
+     * makes to the match run right away, in order with the task.
+     *
+     * @param matchID The ID of the match.
+     * @param task The task.
+     * */
+    public void runInOrder(String matchID, Runnable task) {
+        matchThreads.execute(matchID, task);
+    }
+
+    /**
+     * Returns the counters of every match thread, with how long the changes queued before they ran.
+     * */
+    public List<Map<String, Long>> getMatchThreadMetrics() {
+        return matchThreads.snapshot();
+    }
+
+    /**
+     * Stops the turn timer, and the match threads once the queued changes have run.
+     * */
+    public void shutdown() {
+        turnTimer.stop();
+        matchThreads.shutdown();
+    }
+
+    /**
+     * Runs a change on the thread of its match and waits for it.
+     *
+     * @return the checked exception thrown by the change, or null if it succeeded
+     */
+    private Exception change(String matchID, MatchChange change) {
+        try {
+            matchThreads.call(matchID, () -> {
+                MatchHandle handle = matches.get(matchID);
+                if (handle != null)
+                    handle.lastChange = System.nanoTime();
+                change.apply();
+                return null;
+            });
+            return null;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            return e;
         }
     }
 
+    private static <E extends Exception> void throwIf(Exception failure, Class<E> type) throws E {
+        if (type.isInstance(failure))
+            throw type.cast(failure);
+    }
+
+    private static void checkHandled(Exception failure) {
+        if (failure != null)
+            throw new IllegalStateException("Unexpected failure of a match change", failure);
+    }
+
     /**
      * Returns the text content of a game match.
      * @param matchID The ID of the match.
@@ -284,26 +609,49 @@ public class MatchManager {
      * */
     public String getMatchTextContent(String matchID) throws
             InvalidIDException {
-        if (preparingMatches.containsKey(matchID)) {
-            return preparingMatches.get(matchID).getTextContent();
-        } else if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getTextContent();
-        } else if (finishedMatches.containsKey(matchID)) {
-            return finishedMatches.get(matchID).getTextContent();
-        } else {
+        MatchHandle handle = matches.get(matchID);
+        if (handle == null)
             throw new InvalidIDException(IDType.USER);
-        }
+        return handle.match.getPublishedOutput().textContent;
+    }
+
+    /**
+     * Returns everything the players of a match saw after its last published change. The match itself is only read on
+     * its own thread, so this is safe to call from any other.
+     *
+     * @param matchID The ID of the match.
+     * @throws InvalidIDException When there is no such match in the system.
+     * */
+    public MatchOutput getMatchOutput(String matchID) throws InvalidIDException {
+        return find(matchID).match.getPublishedOutput();
+    }
+
+    private MatchHandle find(String matchID) throws InvalidIDException {
+        MatchHandle handle = matches.get(matchID);
+        if (handle == null)
+            throw new InvalidIDException(IDType.MATCH);
+        return handle;
+    }
+
+    private MatchHandle findWithStatus(String matchID, MatchStatus status) throws InvalidIDException {
+        MatchHandle handle = find(matchID);
+        if (!handle.is(status))
+            throw new InvalidIDException(IDType.MATCH);
+        return handle;
     }
 
     /**
      * Returns a mapping of player's name to their last moves.
      * */
     public Map<String, String> getAllPlayerStats(String matchID) throws InvalidIDException {
-        if (ongoingMatches.containsKey(matchID)) {
-            return ongoingMatches.get(matchID).getAllPlayerStats();
-        } else if (preparingMatches.containsKey(matchID)) {
-            return new HashMap<>();
+        MatchHandle handle = find(matchID);
+        switch (handle.current()) {
+            case ONGOING:
+                return new HashMap<>(handle.match.getPublishedOutput().playerStats);
+            case PREPARING:
+                return new HashMap<>();
+            default:
+                throw new InvalidIDException(IDType.MATCH);
         }
-        else throw new InvalidIDException(IDType.MATCH);
     }
 }
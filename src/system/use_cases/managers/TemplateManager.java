@@ -14,6 +14,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TemplateManager Class
@@ -23,20 +24,23 @@ public class TemplateManager {
     private final HashMap<String, Template> templates;
     private final TemplateDataGateway gateway;
     private final IdManager idManager;
+    private final AtomicLong version;
 
     /**
      * Constructor of Template Manager
      * @param gateway the gateway used to communicate with database
+     * @param idManager the source of the IDs of new templates
      * @throws IOException If issue regarding input-output is detected
      */
-    public TemplateManager(TemplateDataGateway gateway) throws IOException {
+    public TemplateManager(TemplateDataGateway gateway, IdManager idManager) throws IOException {
         templates = new HashMap<>();
+        version = new AtomicLong();
         this.gateway = gateway;
 
         for (Template template: this.gateway.getAllTemplates()) {
             templates.put(template.getID(), template);
         }
-        this.idManager = new IdManager(gateway.getTemplateCount() + 1);
+        this.idManager = idManager;
     }
 
     /**
@@ -67,6 +71,7 @@ public class TemplateManager {
         }
         Template res = editor.getTemplate();
         addTemplate(res);
+        version.incrementAndGet();
     }
 
     /**
@@ -119,6 +124,7 @@ public class TemplateManager {
         } catch (IOException e) {
             throw new RuntimeException("Cannot connect to database to update data.");
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -147,6 +153,13 @@ public class TemplateManager {
         }
     }
 
+    /**
+     * @return the version of the template catalog, bumped after every template created or edited
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     /**
      * @return all template ids in a set
      */
@@ -13,6 +13,7 @@ import system.gateways.UserDataGateway;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,12 +24,14 @@ public class UserManager {
 
     private final IdManager idManager;
     private final UserDataGateway gateway;
+    private final AtomicLong version;
 
-    public UserManager(UserDataGateway gateway) throws IOException, InvalidIDException {
+    public UserManager(UserDataGateway gateway, IdManager idManager) throws IOException, InvalidIDException {
         users = new HashMap<>();
         userIds = new HashMap<>();
         this.gateway = gateway;
         tempPasswords = new HashMap<>();
+        version = new AtomicLong();
 
         Date currentTime = Calendar.getInstance().getTime();
 
@@ -46,7 +49,7 @@ public class UserManager {
             userIds.put(user.getUsername(), userId);
          }
 
-        idManager = new IdManager(gateway.getUserCount() + 1);
+        this.idManager = idManager;
     }
 
     public String getUserId(String username) throws InvalidUsernameException {
@@ -126,6 +129,7 @@ public class UserManager {
         } catch (IOException e) {
             throw new RuntimeException("Fatal Error: Database malfunction.");
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -217,12 +221,7 @@ public class UserManager {
         userIds.put(username, userId);
         users.put(userId, user);
 
-        try {
-            gateway.incrementUserCount();
-        } catch (IOException e) {
-            throw new RuntimeException("Fatal Error: Database malfunction.");
-        }
-
+        version.incrementAndGet();
         return userId;
     }
 
@@ -310,6 +309,7 @@ public class UserManager {
         } else {
             gateway.updateUser(getUser(userId));
         }
+        version.incrementAndGet();
 
     }
 
@@ -376,6 +376,7 @@ public class UserManager {
         } catch (IOException e) {
             throw new RuntimeException("System failure: Can't connect to the database");
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -403,6 +404,7 @@ public class UserManager {
         } catch (IOException e) {
             throw new RuntimeException("System failure: Can't connect to the database.");
         }
+        version.incrementAndGet();
     }
 
 
@@ -416,6 +418,7 @@ public class UserManager {
         User user = getUser(userId);
         user.setEmail(newEmail);
         gateway.updateUser(user);
+        version.incrementAndGet();
     }
 
     /**
@@ -432,6 +435,7 @@ public class UserManager {
         } catch (IOException e) {
             throw new RuntimeException("Cannot connect to the database");
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -449,6 +453,7 @@ public class UserManager {
         if (user.getRole() != UserRole.TRIAL) {
             gateway.updateUser(user);
         }
+        version.incrementAndGet();
     }
 
     /**
@@ -506,6 +511,14 @@ public class UserManager {
 
     }
 
+    /**
+     * Returns the version of the user catalog, bumped after every change to the users, their names, emails, owned
+     * games or friends.
+     * */
+    public long getVersion() {
+        return version.get();
+    }
+
     /**
      * Returns all user IDs in the system.
      * */
@@ -542,6 +555,7 @@ public class UserManager {
             throw new InvalidIDException(IDType.USER);
         users.get(ownerID).addFriend(subjectID);
         gateway.updateUser(users.get(ownerID));
+        version.incrementAndGet();
 
     }
 
@@ -559,6 +573,7 @@ public class UserManager {
             throw new InvalidIDException(IDType.USER);
         users.get(ownerID).removeFriend(subjectID);
         gateway.updateUser(users.get(ownerID));
+        version.incrementAndGet();
 
     }
 
@@ -0,0 +1,185 @@
+package system.utilities;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashedWheelTimer Class
+ * <p>
+ * Runs many short, delayed tasks on a single thread. Timeouts are hashed into the buckets of a wheel that advances one
+ * bucket per tick, so scheduling and cancelling are constant time and the timer never sorts anything. A timeout fires
+ * at most one tick late, which makes this timer fit for coarse deadlines like heartbeats and expiries.
+ * <p>
+ * Tasks run on the timer thread and must return quickly; anything slow should be handed to another executor.
+ */
+public class HashedWheelTimer {
+
+    private final long tickMillis;
+    private final List<List<Timeout>> wheel;
+    private final int mask;
+    private final Queue<Timeout> pending;
+    private final Thread worker;
+    private volatile boolean running;
+    private long startTime;
+    private long tick;
+
+    /**
+     * Timeout Class
+     * <p>
+     * A handle on a scheduled task.
+     */
+    public static class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Prevents the task from running, if it hasn't run yet.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return whether the timeout has been cancelled
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Constructor of HashedWheelTimer
+     *
+     * @param name         the name of the timer thread
+     * @param tickDuration the duration of a tick, which is the precision of the timer
+     * @param unit         the unit of tickDuration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this.tickMillis = Math.max(1, unit.toMillis(tickDuration));
+        int buckets = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.wheel = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            wheel.add(new LinkedList<>());
+        }
+        this.mask = buckets - 1;
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+    }
+
+    /**
+     * Starts the timer thread.
+     */
+    public void start() {
+        startTime = System.currentTimeMillis();
+        running = true;
+        worker.start();
+    }
+
+    /**
+     * Stops the timer thread. Timeouts that haven't fired are dropped.
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Schedules a task. Safe to call from any thread.
+     *
+     * @param task  the task to run on the timer thread
+     * @param delay the delay before the task runs
+     * @param unit  the unit of delay
+     * @return the handle of the scheduled task
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + unit.toMillis(delay));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Schedules a task to run repeatedly, until the returned timeout is cancelled.
+     *
+     * @param task   the task to run on the timer thread
+     * @param period the delay before each run
+     * @param unit   the unit of period
+     * @return the handle that cancels the task
+     */
+    public Timeout schedulePeriodically(Runnable task, long period, TimeUnit unit) {
+        Timeout handle = new Timeout(task, 0);
+        Runnable repeat = new Runnable() {
+            @Override
+            public void run() {
+                if (handle.cancelled) {
+                    return;
+                }
+                task.run();
+                newTimeout(this, period, unit);
+            }
+        };
+        newTimeout(repeat, period, unit);
+        return handle;
+    }
+
+    private void run() {
+        while (running) {
+            long nextTick = startTime + (tick + 1) * tickMillis;
+            long sleep = nextTick - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            transferPending();
+            expire(wheel.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long ticks = Math.max(tick, (timeout.deadline - startTime + tickMillis - 1) / tickMillis);
+            timeout.remainingRounds = (ticks - tick) / wheel.size();
+            wheel.get((int) (ticks & mask)).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> timeouts = bucket.iterator();
+        while (timeouts.hasNext()) {
+            Timeout timeout = timeouts.next();
+            if (timeout.cancelled) {
+                timeouts.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                timeouts.remove();
+                try {
+                    timeout.task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("A timer task failed: " + e);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package system.utilities;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ShardedExecutor Class
+ * <p>
+ * A fixed set of single threaded shards, each with its own queue. Every task is submitted under a key, and all tasks of
+ * a key run on the same shard, one at a time and in the order they were submitted. State that is only touched from the
+ * tasks of its key therefore needs no lock, while different keys still run in parallel on different shards.
+ * <p>
+ * A task submitted from inside a task of the same key runs right away instead of being queued, so a task can call code
+ * that submits to its own key without waiting on itself. A task {@link #queue(String, Runnable) queued} from there runs
+ * after the current one instead, and so does a task of another key that shares the shard, which keeps its place behind
+ * the tasks of that key already waiting.
+ */
+public class ShardedExecutor {
+
+    private final Shard[] shards;
+
+    /**
+     * Shard Class
+     * <p>
+     * One thread, its queue, how long the tasks waited in it, and the key of the task it is running. That key is only
+     * written and compared on the shard's own thread.
+     */
+    private static class Shard {
+        final ThreadPoolExecutor executor;
+        final LongAdder tasks;
+        final LongAdder queuedNanos;
+        final AtomicLong maxQueuedNanos;
+        volatile Thread thread;
+        String runningKey;
+
+        Shard(String name) {
+            this.tasks = new LongAdder();
+            this.queuedNanos = new LongAdder();
+            this.maxQueuedNanos = new AtomicLong();
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        void queued(long nanos) {
+            tasks.increment();
+            queuedNanos.add(nanos);
+            maxQueuedNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Constructor of ShardedExecutor
+     *
+     * @param name   the prefix of the names of the shard threads
+     * @param shards the number of shards
+     */
+    public ShardedExecutor(String name, int shards) {
+        this.shards = new Shard[Math.max(1, shards)];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(name + "-" + i);
+        }
+    }
+
+    private Shard shardOf(String key) {
+        return shards[Math.floorMod(key.hashCode(), shards.length)];
+    }
+
+    private boolean isRunning(Shard shard, String key) {
+        return Thread.currentThread() == shard.thread && key.equals(shard.runningKey);
+    }
+
+    /**
+     * Queues a task on the shard of its key, or runs it right away when called from a task of the same key. Nobody waits
+     * on the task, so whatever it throws is printed rather than lost.
+     *
+     * @param key  the key the task is ordered under
+     * @param task the task
+     */
+    public void execute(String key, Runnable task) {
+        Shard shard = shardOf(key);
+        Runnable logged = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.out.println("A task of " + key + " failed: " + e);
+            }
+        };
+        if (isRunning(shard, key)) {
+            logged.run();
+            return;
+        }
+        enqueue(shard, key, logged);
+    }
+
+    /**
+     * Queues a task on the shard of its key, even when called from that shard.
+     *
+     * @param key  the key the task is ordered under
+     * @param task the task
+     */
+    public void queue(String key, Runnable task) {
+        enqueue(shardOf(key), key, task);
+    }
+
+    /**
+     * Queues a task on the shard of its key, or runs it right away when called from a task of the same key.
+     *
+     * @param key  the key the task is ordered under
+     * @param task the task
+     * @param <T>  the result of the task
+     * @return the pending result of the task
+     */
+    public <T> Future<T> submit(String key, Callable<T> task) {
+        Shard shard = shardOf(key);
+        FutureTask<T> future = new FutureTask<>(task);
+        if (isRunning(shard, key)) {
+            future.run();
+            return future;
+        }
+        enqueue(shard, key, future);
+        return future;
+    }
+
+    private void enqueue(Shard shard, String key, Runnable task) {
+        long queuedAt = System.nanoTime();
+        shard.executor.execute(() -> {
+            shard.queued(System.nanoTime() - queuedAt);
+            shard.runningKey = key;
+            try {
+                task.run();
+            } finally {
+                shard.runningKey = null;
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the shard of its key and waits for it.
+     *
+     * @param key  the key the task is ordered under
+     * @param task the task
+     * @param <T>  the result of the task
+     * @return the result of the task
+     * @throws Exception whatever the task threw
+     */
+    public <T> T call(String key, Callable<T> task) throws Exception {
+        Future<T> future = submit(key, task);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Stops every shard once the queued tasks have run.
+     */
+    public void shutdown() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the counters of every shard:
+     * <ul>
+     *     <li>tasks: the tasks queued on the shard so far</li>
+     *     <li>pendingTasks: the tasks waiting in its queue right now</li>
+     *     <li>averageQueueMicros and maxQueueMicros: how long the tasks waited before they ran</li>
+     * </ul>
+     *
+     * @return the counters, one mapping of counter name to value per shard
+     */
+    public List<Map<String, Long>> snapshot() {
+        List<Map<String, Long>> snapshot = new ArrayList<>();
+        for (Shard shard : shards) {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            long tasks = shard.tasks.sum();
+            counters.put("tasks", tasks);
+            counters.put("pendingTasks", (long) shard.executor.getQueue().size());
+            counters.put("averageQueueMicros", tasks == 0 ? 0 : shard.queuedNanos.sum() / tasks / 1000);
+            counters.put("maxQueueMicros", shard.maxQueuedNanos.get() / 1000);
+            snapshot.add(counters);
+        }
+        return snapshot;
+    }
+}
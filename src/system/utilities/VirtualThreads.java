@@ -0,0 +1,50 @@
+package system.utilities;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * VirtualThreads Class
+ * <p>
+ * Access to the virtual threads of Java 21 and later. The system is compiled for older releases, so they are looked up
+ * by reflection and callers fall back to platform threads when the running JVM doesn't have them.
+ */
+public class VirtualThreads {
+
+    private static final Method NEW_EXECUTOR = find();
+
+    private VirtualThreads() {
+    }
+
+    private static Method find() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * @return an executor that runs every task on a new virtual thread
+     * @throws UnsupportedOperationException when the running JVM doesn't support virtual threads
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Can't create virtual threads", e);
+        }
+    }
+}
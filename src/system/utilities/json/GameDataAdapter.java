@@ -0,0 +1,71 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shared.DTOs.Responses.GameDataResponseBody;
+import shared.constants.GameAccessLevel;
+import shared.constants.GameGenre;
+
+import java.io.IOException;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * GameDataAdapter Class
+ * <p>
+ * Writes and reads a {@link GameDataResponseBody} without reflection. The game listings hold one per game.
+ */
+class GameDataAdapter extends TypeAdapter<GameDataResponseBody> {
+
+    @Override
+    public void write(JsonWriter out, GameDataResponseBody data) throws IOException {
+        if (data == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "id", data.id);
+        writeString(out, "ownerName", data.ownerName);
+        writeString(out, "title", data.title);
+        writeEnum(out, "accessLevel", data.accessLevel);
+        writeEnum(out, "previousAccessLevel", data.previousAccessLevel);
+        writeEnum(out, "genre", data.genre);
+        out.endObject();
+    }
+
+    @Override
+    public GameDataResponseBody read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        GameDataResponseBody data = new GameDataResponseBody();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    data.id = readString(in);
+                    break;
+                case "ownerName":
+                    data.ownerName = readString(in);
+                    break;
+                case "title":
+                    data.title = readString(in);
+                    break;
+                case "accessLevel":
+                    data.accessLevel = readEnum(in, GameAccessLevel.class);
+                    break;
+                case "previousAccessLevel":
+                    data.previousAccessLevel = readEnum(in, GameAccessLevel.class);
+                    break;
+                case "genre":
+                    data.genre = readEnum(in, GameGenre.class);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return data;
+    }
+}
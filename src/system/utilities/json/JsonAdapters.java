@@ -0,0 +1,141 @@
+package system.utilities.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JsonAdapters Class
+ * <p>
+ * The pieces the hand-written adapters share. They read and write exactly what the reflective adapters of Gson do:
+ * null fields and null map values are left out, enums are written by name and unknown fields are skipped.
+ */
+final class JsonAdapters {
+
+    private JsonAdapters() {
+    }
+
+    /**
+     * Writes a field, unless its value is null.
+     */
+    static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    /**
+     * Writes a field, unless its value is null.
+     */
+    static void writeEnum(JsonWriter out, String name, Enum<?> value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value.name());
+        }
+    }
+
+    /**
+     * Writes a field, unless its value is null.
+     */
+    static void writeStringMap(JsonWriter out, String name, Map<String, String> map) throws IOException {
+        if (map == null) {
+            return;
+        }
+        out.name(name).beginObject();
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if (entry.getValue() != null) {
+                out.name(entry.getKey()).value(entry.getValue());
+            }
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes a field, unless its value is null.
+     */
+    static void writeStringList(JsonWriter out, String name, List<String> list) throws IOException {
+        if (list == null) {
+            return;
+        }
+        out.name(name).beginArray();
+        for (String value : list) {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value);
+            }
+        }
+        out.endArray();
+    }
+
+    /**
+     * @return whether the next value is null, which is then consumed
+     */
+    static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the next string, or null if the value is null
+     */
+    static String readString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    /**
+     * @return the constant of the next value, or null if the value is null or names no constant, like Gson does
+     */
+    static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> type) throws IOException {
+        String name = readString(in);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the next object as a map, or null if the value is null
+     */
+    static Map<String, String> readStringMap(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        Map<String, String> map = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            map.put(key, readString(in));
+        }
+        in.endObject();
+        return map;
+    }
+
+    /**
+     * @return the next array as a list, or null if the value is null
+     */
+    static List<String> readStringList(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(readString(in));
+        }
+        in.endArray();
+        return list;
+    }
+}
@@ -0,0 +1,70 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shared.DTOs.Responses.MatchDataResponseBody;
+import shared.constants.GameGenre;
+
+import java.io.IOException;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * MatchDataAdapter Class
+ * <p>
+ * Writes and reads a {@link MatchDataResponseBody} without reflection. The match listing holds one per match.
+ */
+class MatchDataAdapter extends TypeAdapter<MatchDataResponseBody> {
+
+    @Override
+    public void write(JsonWriter out, MatchDataResponseBody data) throws IOException {
+        if (data == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "gameTitle", data.gameTitle);
+        writeString(out, "matchId", data.matchId);
+        writeString(out, "hostName", data.hostName);
+        writeEnum(out, "genre", data.genre);
+        out.name("numPlayers").value(data.numPlayers);
+        out.name("maxPlayers").value(data.maxPlayers);
+        out.endObject();
+    }
+
+    @Override
+    public MatchDataResponseBody read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        MatchDataResponseBody data = new MatchDataResponseBody();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "gameTitle":
+                    data.gameTitle = readString(in);
+                    break;
+                case "matchId":
+                    data.matchId = readString(in);
+                    break;
+                case "hostName":
+                    data.hostName = readString(in);
+                    break;
+                case "genre":
+                    data.genre = readEnum(in, GameGenre.class);
+                    break;
+                case "numPlayers":
+                    data.numPlayers = in.nextInt();
+                    break;
+                case "maxPlayers":
+                    data.maxPlayers = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return data;
+    }
+}
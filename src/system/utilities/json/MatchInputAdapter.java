@@ -0,0 +1,53 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shared.DTOs.sockets.MatchInput;
+
+import java.io.IOException;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * MatchInputAdapter Class
+ * <p>
+ * Writes and reads a {@link MatchInput} without reflection. It is decoded for every move of every player.
+ */
+class MatchInputAdapter extends TypeAdapter<MatchInput> {
+
+    @Override
+    public void write(JsonWriter out, MatchInput input) throws IOException {
+        if (input == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "sysCommand", input.sysCommand);
+        writeString(out, "gameMove", input.gameMove);
+        out.endObject();
+    }
+
+    @Override
+    public MatchInput read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        MatchInput input = new MatchInput();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "sysCommand":
+                    input.sysCommand = readString(in);
+                    break;
+                case "gameMove":
+                    input.gameMove = readString(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return input;
+    }
+}
@@ -0,0 +1,66 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shared.DTOs.sockets.MatchOutput;
+import shared.constants.MatchStatus;
+
+import java.io.IOException;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * MatchOutputAdapter Class
+ * <p>
+ * Writes and reads a {@link MatchOutput} without reflection. It is encoded for every update of every match.
+ */
+class MatchOutputAdapter extends TypeAdapter<MatchOutput> {
+
+    @Override
+    public void write(JsonWriter out, MatchOutput output) throws IOException {
+        if (output == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeEnum(out, "status", output.status);
+        writeString(out, "textContent", output.textContent);
+        out.name("numPlayers").value(output.numPlayers);
+        writeStringMap(out, "playerStats", output.playerStats);
+        out.name("turnTimeLeftMillis").value(output.turnTimeLeftMillis);
+        out.endObject();
+    }
+
+    @Override
+    public MatchOutput read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        MatchOutput output = new MatchOutput();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "status":
+                    output.status = readEnum(in, MatchStatus.class);
+                    break;
+                case "textContent":
+                    output.textContent = readString(in);
+                    break;
+                case "numPlayers":
+                    output.numPlayers = in.nextInt();
+                    break;
+                case "playerStats":
+                    output.playerStats = readStringMap(in);
+                    break;
+                case "turnTimeLeftMillis":
+                    output.turnTimeLeftMillis = in.nextLong();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return output;
+    }
+}
@@ -0,0 +1,82 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import shared.DTOs.sockets.MatchOutputDelta;
+import shared.constants.MatchStatus;
+
+import java.io.IOException;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * MatchOutputDeltaAdapter Class
+ * <p>
+ * Writes and reads a {@link MatchOutputDelta} without reflection. It is encoded for every update of every match.
+ */
+class MatchOutputDeltaAdapter extends TypeAdapter<MatchOutputDelta> {
+
+    @Override
+    public void write(JsonWriter out, MatchOutputDelta delta) throws IOException {
+        if (delta == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("seq").value(delta.seq);
+        out.name("snapshot").value(delta.snapshot);
+        writeEnum(out, "status", delta.status);
+        writeString(out, "textContent", delta.textContent);
+        if (delta.numPlayers != null) {
+            out.name("numPlayers").value(delta.numPlayers.intValue());
+        }
+        if (delta.turnTimeLeftMillis != null) {
+            out.name("turnTimeLeftMillis").value(delta.turnTimeLeftMillis.longValue());
+        }
+        writeStringMap(out, "playerStats", delta.playerStats);
+        writeStringList(out, "removedPlayers", delta.removedPlayers);
+        out.endObject();
+    }
+
+    @Override
+    public MatchOutputDelta read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        MatchOutputDelta delta = new MatchOutputDelta();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "seq":
+                    delta.seq = in.nextLong();
+                    break;
+                case "snapshot":
+                    delta.snapshot = in.nextBoolean();
+                    break;
+                case "status":
+                    delta.status = readEnum(in, MatchStatus.class);
+                    break;
+                case "textContent":
+                    delta.textContent = readString(in);
+                    break;
+                case "numPlayers":
+                    delta.numPlayers = skipNull(in) ? null : in.nextInt();
+                    break;
+                case "turnTimeLeftMillis":
+                    delta.turnTimeLeftMillis = skipNull(in) ? null : in.nextLong();
+                    break;
+                case "playerStats":
+                    delta.playerStats = readStringMap(in);
+                    break;
+                case "removedPlayers":
+                    delta.removedPlayers = readStringList(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return delta;
+    }
+}
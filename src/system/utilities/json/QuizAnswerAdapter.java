@@ -0,0 +1,75 @@
+package system.utilities.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import system.entities.game.quiz.QuizAnswer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static system.utilities.json.JsonAdapters.*;
+
+/**
+ * QuizAnswerAdapter Class
+ * <p>
+ * Writes and reads a {@link QuizAnswer} through its constructor rather than reflection. The score rewards are read
+ * with {@link JsonReader#nextDouble()} straight into the map of the answer, instead of through the boxed Double
+ * adapter and the intermediate map of the reflective path.
+ */
+class QuizAnswerAdapter extends TypeAdapter<QuizAnswer> {
+
+    @Override
+    public void write(JsonWriter out, QuizAnswer answer) throws IOException {
+        if (answer == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        writeString(out, "text", answer.toString());
+        out.name("scoresRewardsByCategory").beginObject();
+        for (Map.Entry<String, Double> reward : answer.getScoresRewardsByCategory().entrySet()) {
+            if (reward.getValue() != null) {
+                out.name(reward.getKey()).value(reward.getValue().doubleValue());
+            }
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    @Override
+    public QuizAnswer read(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        String text = null;
+        HashMap<String, Double> rewards = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "text":
+                    text = readString(in);
+                    break;
+                case "scoresRewardsByCategory":
+                    if (skipNull(in)) {
+                        break;
+                    }
+                    rewards = new HashMap<>();
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String category = in.nextName();
+                        if (!skipNull(in)) {
+                            rewards.put(category, in.nextDouble());
+                        }
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return rewards == null ? new QuizAnswer(text) : new QuizAnswer(text, rewards);
+    }
+}
@@ -0,0 +1,49 @@
+package system.utilities.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import shared.DTOs.Responses.GameDataResponseBody;
+import shared.DTOs.Responses.MatchDataResponseBody;
+import shared.DTOs.sockets.MatchInput;
+import shared.DTOs.sockets.MatchOutput;
+import shared.DTOs.sockets.MatchOutputDelta;
+import system.entities.game.quiz.QuizAnswer;
+
+/**
+ * SharedGson Class
+ * <p>
+ * The Gson instances of the server. Gson is thread safe and caches the adapter of every type it has seen, so one
+ * instance is shared instead of every handler, listener and mapper building its own and warming its own cache.
+ * <p>
+ * The types encoded on the hot paths, the match socket messages and the game and match listings, are written by
+ * hand-written adapters that skip reflection; every other type still goes through the reflective adapters of Gson.
+ */
+public final class SharedGson {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(MatchOutput.class, new MatchOutputAdapter())
+            .registerTypeAdapter(MatchOutputDelta.class, new MatchOutputDeltaAdapter())
+            .registerTypeAdapter(MatchInput.class, new MatchInputAdapter())
+            .registerTypeAdapter(GameDataResponseBody.class, new GameDataAdapter())
+            .registerTypeAdapter(MatchDataResponseBody.class, new MatchDataAdapter())
+            .registerTypeAdapter(QuizAnswer.class, new QuizAnswerAdapter())
+            .create();
+    private static final Gson PRETTY = GSON.newBuilder().setPrettyPrinting().create();
+
+    private SharedGson() {
+    }
+
+    /**
+     * @return the compact Gson, for messages and responses
+     */
+    public static Gson get() {
+        return GSON;
+    }
+
+    /**
+     * @return the pretty printing Gson, for the files of the database
+     */
+    public static Gson pretty() {
+        return PRETTY;
+    }
+}